@@ -0,0 +1,49 @@
+package ru.yandex.practicum.bench;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Subtask;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.service.TaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Общие тестовые данные для бенчмарков: задачи по 30 минут через каждый час,
+ * каждая десятая позиция - эпик с подзадачами на следующих позициях.
+ */
+final class BenchmarkData {
+    static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final Duration TASK_DURATION = Duration.ofMinutes(30);
+
+    private BenchmarkData() {
+    }
+
+    static LocalDateTime slot(int index) {
+        return BASE_TIME.plusHours(index);
+    }
+
+    // Заполняет менеджер size задачами с id от 1 до size
+    static void fill(TaskManager manager, int size) {
+        Epic epic = null;
+        for (int id = 1; id <= size; id++) {
+            if (id % 10 == 1) {
+                epic = new Epic(id, "Epic " + id, "Epic description");
+                manager.addTask(epic);
+            } else if (id % 10 < 5) {
+                manager.addTask(new Subtask(id, "Subtask " + id, "Subtask description", Status.NEW,
+                        epic, slot(id), TASK_DURATION));
+            } else {
+                manager.addTask(new Task(id, "Task " + id, "Task description", Status.NEW,
+                        slot(id), TASK_DURATION));
+            }
+        }
+    }
+
+    // Задача в свободном промежутке посередине расписания
+    static Task freeSlotTask(int size) {
+        return new Task(size + 1, "Probe", "", Status.NEW,
+                slot(size / 2).plusMinutes(30), TASK_DURATION);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.TaskManager;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Добавление пачки задач в доску из 10 000 задач: batch вызовов addTask против одного addTasks.
+ * Каждый замер - одна пачка на свежей доске (SingleShotTime), иначе доска росла бы от замера к замеру.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int SIZE = 10_000;
+
+    @Param({"100", "1000"})
+    public int batch;
+
+    @Param({"IN_MEMORY", "FILE_BACKED"})
+    public String manager;
+
+    private Path file;
+    private byte[] snapshot;
+    private TaskManager taskManager;
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, SIZE);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".bin");
+        Files.write(file, lines);
+        FileBackedTaskManager.loadFromFile(file.toFile()).exportTo(file, SnapshotFormat.BINARY);
+        snapshot = Files.readAllBytes(file);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        if (manager.equals("FILE_BACKED")) {
+            Files.write(file, snapshot);
+            taskManager = FileBackedTaskManager.loadFromFile(file.toFile(), FsyncPolicy.NEVER);
+        } else {
+            taskManager = new InMemoryTaskManager();
+            BenchmarkData.fill(taskManager, SIZE);
+        }
+        // задачи пачки - в свободных получасах между задачами доски
+        tasks = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            tasks.add(new Task("Batch " + i, "Description",
+                    BenchmarkData.slot(i * (SIZE / batch)).plusMinutes(30), BenchmarkData.TASK_DURATION));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TaskManager addOneByOne() {
+        for (Task task : tasks) {
+            taskManager.addTask(task);
+        }
+        return taskManager;
+    }
+
+    @Benchmark
+    public TaskManager addBatch() {
+        taskManager.addTasks(tasks);
+        return taskManager;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.service.HttpTaskServer;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Опрос неизменной доски через HTTP: GET /tasks целиком против условного GET с ETag прошлого ответа
+ * (304 без тела). Сервер и клиент в одном процессе, поэтому -prof gc учитывает обе стороны.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionalGetBenchmark {
+    private static final int PORT = 18080;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private HttpTaskServer server;
+    private HttpClient client;
+    private HttpRequest fullRequest;
+    private HttpRequest conditionalRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        server = new HttpTaskServer(manager, PORT);
+        server.start();
+        client = HttpClient.newHttpClient();
+        fullRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/tasks")).GET().build();
+        String etag = client.send(fullRequest, HttpResponse.BodyHandlers.discarding())
+                .headers().firstValue("ETag").orElseThrow();
+        conditionalRequest = HttpRequest.newBuilder(fullRequest.uri()).header("If-None-Match", etag).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public byte[] fullGet() throws IOException, InterruptedException {
+        return client.send(fullRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public int conditionalGet() throws IOException, InterruptedException {
+        return client.send(conditionalRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
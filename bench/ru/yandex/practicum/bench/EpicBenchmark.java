@@ -0,0 +1,59 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Агрегаты эпика с size подзадачами: их читают при каждой выдаче эпика и подзадач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpicBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private Epic epic;
+    private Subtask subtask;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        epic = new Epic(1, "Epic", "Description");
+        for (int i = 0; i < size; i++) {
+            subtask = new Subtask(i + 2, "Subtask " + i, "Description", Status.values()[i % 3],
+                    epic, BenchmarkData.slot(i), BenchmarkData.TASK_DURATION);
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime getStartTime() {
+        return epic.getStartTime();
+    }
+
+    @Benchmark
+    public LocalDateTime getEndTime() {
+        return epic.getEndTime();
+    }
+
+    @Benchmark
+    public Duration getDuration() {
+        return epic.getDuration();
+    }
+
+    // Обновление подзадачи: замена в эпике и пересчёт статуса
+    @Benchmark
+    public Status updateSubtask() {
+        epic.addSubtask(subtask);
+        return epic.getStatus();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись и загрузка доски из size задач в формате CSV и в двоичном формате.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBackedBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    private Path file;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // FileBackedTaskManager переписывает файл при каждом addTask, поэтому заполнять его
+        // напрямую - O(size^2); пишем файл один раз и загружаем
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        // эпики раньше подзадач, как их пишет FileBackedTaskManager
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".csv");
+        Files.write(file, lines);
+        manager = FileBackedTaskManager.loadFromFile(file.toFile());
+        if (format == SnapshotFormat.BINARY) {
+            manager.exportTo(file, SnapshotFormat.BINARY);
+            manager = FileBackedTaskManager.loadFromFile(file.toFile());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void save() {
+        manager.save();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file.toFile());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.entity.TimeSlot;
+import ru.yandex.practicum.exceptions.TimeConflictException;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск места для задачи на 2 часа: самые длинные промежутки доски - полтора часа (на месте эпиков),
+ * поэтому первое подходящее место - после конца доски, в distance часах от начала поиска.
+ * trialAndError - как клиент без findFreeSlots: addTask с шагом 15 минут до первой удачи;
+ * findFreeSlot - один проход по расписанию; placeTask - поиск и вставка.
+ * Найденная задача сразу удаляется, чтобы доска не менялась.
+ * gridMinutes - длина корзины карты занятости (0 - без карты).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeSlotBenchmark {
+    private static final Duration WANTED = Duration.ofHours(2);
+    private static final Duration STEP = Duration.ofMinutes(15);
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"10", "100"})
+    public int distance;
+
+    @Param({"0", "15"})
+    public int gridMinutes;
+
+    private InMemoryTaskManager manager;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        if (gridMinutes > 0) {
+            manager.enableOccupancyGrid(Duration.ofMinutes(gridMinutes));
+        }
+        from = BenchmarkData.slot(size - distance);
+        to = BenchmarkData.slot(size + 24);
+    }
+
+    @Benchmark
+    public Task trialAndError() {
+        for (LocalDateTime start = from; start.isBefore(to); start = start.plus(STEP)) {
+            Task task = new Task("Probe", "", start, WANTED);
+            try {
+                manager.addTask(task);
+            } catch (TimeConflictException e) {
+                continue;
+            }
+            manager.deleteTask(task);
+            return task;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public List<TimeSlot> findFreeSlot() {
+        return manager.findFreeSlots(from, to, WANTED, 1);
+    }
+
+    @Benchmark
+    public Task placeTask() {
+        Task task = manager.placeTask(TaskType.TASK, "Probe", "", null, WANTED, from, to);
+        manager.deleteTask(task);
+        return task;
+    }
+}
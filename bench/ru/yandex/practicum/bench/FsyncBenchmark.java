@@ -0,0 +1,73 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Изменение доски с записью снимка (через временный файл) при разных политиках сброса на диск.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FsyncBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"NEVER", "EVERY_100_MS", "ALWAYS"})
+    public String fsync;
+
+    private Path file;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".bin");
+        Files.write(file, lines);
+        FileBackedTaskManager.loadFromFile(file.toFile()).exportTo(file, SnapshotFormat.BINARY);
+        FsyncPolicy policy = switch (fsync) {
+            case "ALWAYS" -> FsyncPolicy.ALWAYS;
+            case "EVERY_100_MS" -> FsyncPolicy.every(Duration.ofMillis(100));
+            default -> FsyncPolicy.NEVER;
+        };
+        manager = FileBackedTaskManager.loadFromFile(file.toFile(), policy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // добавление и удаление задачи: две записи снимка
+    @Benchmark
+    public void addAndDelete() {
+        Task task = new Task("Bench", "Description");
+        manager.addTask(task);
+        manager.deleteTask(task);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.AsyncFileBackedTaskManager;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.GroupCommitTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.SynchronizedTaskManager;
+import ru.yandex.practicum.service.TaskManager;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Изменения доски от 16 клиентов одновременно, как параллельные POST-запросы к HTTP-серверу:
+ * запись снимка после каждого изменения против групповой и асинхронной записи.
+ * Каждое изменение, кроме ASYNC, возвращает управление только после записи в файл;
+ * ASYNC - после изменения в памяти, пока отставание записи не больше maxLag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class GroupCommitBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"PER_CHANGE", "GROUP_1_MS", "GROUP_5_MS", "ASYNC"})
+    public String mode;
+
+    private Path file;
+    private FileBackedTaskManager loaded;
+    private TaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".bin");
+        Files.write(file, lines);
+        FileBackedTaskManager.loadFromFile(file.toFile()).exportTo(file, SnapshotFormat.BINARY);
+        loaded = switch (mode) {
+            case "GROUP_1_MS" -> GroupCommitTaskManager.loadFromFile(file.toFile(), FsyncPolicy.NEVER,
+                    Duration.ofMillis(1));
+            case "GROUP_5_MS" -> GroupCommitTaskManager.loadFromFile(file.toFile(), FsyncPolicy.NEVER,
+                    Duration.ofMillis(5));
+            case "ASYNC" -> AsyncFileBackedTaskManager.loadFromFile(file.toFile(), FsyncPolicy.NEVER,
+                    AsyncFileBackedTaskManager.DEFAULT_MAX_LAG);
+            default -> FileBackedTaskManager.loadFromFile(file.toFile(), FsyncPolicy.NEVER);
+        };
+        manager = SynchronizedTaskManager.of(loaded);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (loaded instanceof GroupCommitTaskManager groupCommit) {
+            groupCommit.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    // добавление и удаление задачи: два изменения
+    @Benchmark
+    public void addAndDelete() {
+        Task task = new Task("Bench", "Description");
+        manager.addTask(task);
+        manager.deleteTask(task);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.service.ConcurrentHistoryManager;
+import ru.yandex.practicum.service.HistoryManager;
+import ru.yandex.practicum.service.InMemoryHistoryManager;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Просмотры задач из 16 потоков одновременно.
+ * <p>
+ * synchronized - {@link InMemoryHistoryManager} под общей блокировкой (как в SynchronizedTaskManager),
+ * concurrent - {@link ConcurrentHistoryManager}. В группе mixed 12 потоков добавляют просмотры,
+ * 4 читают историю.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryContentionBenchmark {
+    private static final int TASKS = 10_000;
+
+    @Param({"synchronized", "concurrent"})
+    public String impl;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = switch (impl) {
+            case "synchronized" -> new LockedHistoryManager(new InMemoryHistoryManager());
+            case "concurrent" -> new ConcurrentHistoryManager();
+            default -> throw new IllegalArgumentException(impl);
+        };
+        tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Desc", Status.NEW, null, null);
+        }
+        for (Task task : tasks) {
+            historyManager.add(task);
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void add() {
+        historyManager.add(tasks[ThreadLocalRandom.current().nextInt(TASKS)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public void mixedAdd() {
+        historyManager.add(tasks[ThreadLocalRandom.current().nextInt(TASKS)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public List<Task> mixedGetHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Прежняя схема: все операции истории под одной блокировкой
+    private static final class LockedHistoryManager implements HistoryManager {
+        private final HistoryManager delegate;
+
+        private LockedHistoryManager(HistoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            delegate.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            delegate.remove(id);
+        }
+
+        @Override
+        public synchronized void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return delegate.getHistory();
+        }
+
+        @Override
+        public synchronized long getVersion() {
+            return delegate.getVersion();
+        }
+    }
+}
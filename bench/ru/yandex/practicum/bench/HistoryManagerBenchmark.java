@@ -0,0 +1,67 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.service.InMemoryHistoryManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции InMemoryHistoryManager при истории из size просмотренных задач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private InMemoryHistoryManager historyManager;
+    private Task[] tasks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = new InMemoryHistoryManager(size);
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Description", Status.NEW,
+                    BenchmarkData.slot(i), BenchmarkData.TASK_DURATION);
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    // Повторный просмотр задачи переносит её в конец истории
+    @Benchmark
+    public void add() {
+        historyManager.add(tasks[next]);
+        next = (next + 1) % size;
+    }
+
+    @Benchmark
+    public void removeAndAdd() {
+        historyManager.remove(tasks[next].getId());
+        historyManager.add(tasks[next]);
+        next = (next + 1) % size;
+    }
+
+    // Чтение без изменений - отдаётся готовый снимок
+    @Benchmark
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Просмотр и сразу чтение истории: снимок пересобирается
+    @Benchmark
+    public List<Task> addAndGetHistory() {
+        historyManager.add(tasks[next]);
+        next = (next + 1) % size;
+        return historyManager.getHistory();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.service.id.AtomicIdAllocator;
+import ru.yandex.practicum.service.id.BlockIdAllocator;
+import ru.yandex.practicum.service.id.IdAllocator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача id из 16 потоков одновременно.
+ * <p>
+ * synchronized - прежний Task.generateId() под общей блокировкой, atomic - {@link AtomicIdAllocator},
+ * block - {@link BlockIdAllocator} с арендой блоков по 64 id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class IdAllocatorBenchmark {
+
+    @Param({"synchronized", "atomic", "block"})
+    public String allocator;
+
+    private IdAllocator idAllocator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idAllocator = switch (allocator) {
+            case "synchronized" -> new SynchronizedIdAllocator();
+            case "atomic" -> new AtomicIdAllocator();
+            case "block" -> new BlockIdAllocator();
+            default -> throw new IllegalArgumentException(allocator);
+        };
+    }
+
+    @Benchmark
+    public int nextId() {
+        return idAllocator.nextId();
+    }
+
+    // Прежняя схема: общий счётчик под блокировкой
+    private static final class SynchronizedIdAllocator implements IdAllocator {
+        private int counter;
+
+        @Override
+        public synchronized int nextId() {
+            return ++counter;
+        }
+
+        @Override
+        public synchronized void observe(int id) {
+            counter = Math.max(counter, id);
+        }
+
+        @Override
+        public synchronized int lastId() {
+            return counter;
+        }
+
+        @Override
+        public synchronized void reset() {
+            counter = 0;
+        }
+    }
+}
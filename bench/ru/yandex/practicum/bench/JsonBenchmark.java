@@ -0,0 +1,73 @@
+package ru.yandex.practicum.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.HttpTaskServer;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов в JSON тем же Gson, что использует BaseHttpHandler.
+ * <p>
+ * tasksToPrettyJson - прежний путь (строка с отступами), tasksToJson - компактная строка,
+ * tasksStreamed - компактный JSON сразу в поток, как в BaseHttpHandler.sendJson: с тем же
+ * кодированием в UTF-8, только байты уходят в OutputStream.nullOutputStream().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private Gson gson;
+    private Gson prettyGson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        gson = new HttpTaskServer(manager, 8080).getGson();
+        prettyGson = gson.newBuilder().setPrettyPrinting().create();
+    }
+
+    // GET /tasks
+    @Benchmark
+    public String tasksToPrettyJson() {
+        return prettyGson.toJson(manager.getAllTasksByType(TaskType.TASK));
+    }
+
+    @Benchmark
+    public String tasksToJson() {
+        return gson.toJson(manager.getAllTasksByType(TaskType.TASK));
+    }
+
+    @Benchmark
+    public void tasksStreamed() throws IOException {
+        Map<Integer, ?> tasks = manager.getAllTasksByType(TaskType.TASK);
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8)))) {
+            gson.toJson(tasks, tasks.getClass(), writer);
+        }
+    }
+
+    // GET /prioritized
+    @Benchmark
+    public String prioritizedToJson() {
+        return gson.toJson(manager.getPrioritizedTasks());
+    }
+}
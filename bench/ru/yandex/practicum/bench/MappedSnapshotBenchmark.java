@@ -0,0 +1,77 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.MappedTaskManager;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запуск доски из двоичного снимка: полная загрузка против отображения в память
+ * и чтения задач по мере обращения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedSnapshotBenchmark {
+    private static final int VIEWS = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // как в FileBackedBenchmark: CSV пишется один раз, затем переводится в двоичный снимок
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".bin");
+        Files.write(file, lines);
+        FileBackedTaskManager.loadFromFile(file.toFile()).exportTo(file, SnapshotFormat.BINARY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file.toFile());
+    }
+
+    @Benchmark
+    public MappedTaskManager open() {
+        return MappedTaskManager.open(file);
+    }
+
+    // запуск и VIEWS просмотров задач, разбросанных по всему файлу
+    @Benchmark
+    public void openAndView(Blackhole blackhole) {
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        for (int i = 1; i <= VIEWS; i++) {
+            blackhole.consume(manager.getTaskById((int) ((long) size * i / VIEWS)));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.FileBackedTaskManager;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка снимка: последовательная (parallelism = 1) против параллельного разбора
+ * с общей сборкой доски и проверкой пересечений одной сортировкой.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ParallelLoadBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,startTime,duration");
+        for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+            for (Task task : source.getAllTasksByType(taskType).values()) {
+                lines.add(task.writeToString());
+            }
+        }
+        file = Files.createTempFile("bench-tasks", ".csv");
+        Files.write(file, lines);
+        if (format == SnapshotFormat.BINARY) {
+            FileBackedTaskManager.loadFromFile(file.toFile(), 1).exportTo(file, SnapshotFormat.BINARY);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file.toFile(), parallelism);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Основные операции InMemoryTaskManager на заполненной доске.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private Task probe;
+    private LocalDateTime middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        probe = BenchmarkData.freeSlotTask(size);
+        middle = BenchmarkData.slot(size / 2);
+    }
+
+    // Добавление с проверкой пересечения по времени; удаление возвращает доску в исходное состояние
+    @Benchmark
+    public boolean addTaskWithOverlapCheck() {
+        manager.addTask(probe);
+        return manager.deleteTask(probe);
+    }
+
+    @Benchmark
+    public Map<Integer, Task> getAllTasksByType() {
+        return manager.getAllTasksByType(TaskType.TASK);
+    }
+
+    // Полный обход расписания, как при выдаче /prioritized
+    @Benchmark
+    public void iteratePrioritizedTasks(Blackhole blackhole) {
+        for (Task task : manager.getPrioritizedTasks()) {
+            blackhole.consume(task);
+        }
+    }
+
+    // Страница /tasks?limit=100&after=... из середины доски
+    @Benchmark
+    public List<Task> tasksPage() {
+        return manager.getTasksPage(TaskType.TASK, size / 2, 100);
+    }
+
+    // /prioritized?from=...&limit=100 из середины расписания
+    @Benchmark
+    public List<Task> prioritizedRange() {
+        return manager.getPrioritizedTasks(middle, null, 100);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.service.schedule.TimeIntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение проверки пересечения по времени: индекс интервалов против прежнего
+ * полного прохода по списку приоритетов.
+ * Задачи по 30 минут стоят через каждый час, проверяемая задача попадает
+ * в свободный промежуток посередине расписания (худший случай для полного прохода).
+ * gridCheck - тот же индекс с картой занятости по 15 минут.
+ * conflictCheck - проверка задачи, задевающей соседнюю; pairCheck и legacyPairCheck - сравнение
+ * одной пары задач через кэшированные минуты эпохи и прежним способом через start.plus(duration).
+ * Выделение памяти на вызов - с профилировщиком -prof gc (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeOverlapBenchmark {
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private TimeIntervalIndex index;
+    private TimeIntervalIndex gridIndex;
+    private Task probe;
+    private Task conflicting;
+    private Task neighbour;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new TimeIntervalIndex();
+        gridIndex = new TimeIntervalIndex();
+        gridIndex.enableOccupancyGrid(Duration.ofMinutes(15));
+        for (int i = 1; i <= size; i++) {
+            Task task = new Task(i, "Task " + i, "", Status.NEW, BASE_TIME.plusHours(i), Duration.ofMinutes(30));
+            index.add(task);
+            gridIndex.add(task);
+        }
+        probe = new Task(size + 1, "Probe", "", Status.NEW,
+                BASE_TIME.plusHours(size / 2).plusMinutes(30), Duration.ofMinutes(30));
+        conflicting = new Task(size + 2, "Conflicting", "", Status.NEW,
+                BASE_TIME.plusHours(size / 2).plusMinutes(45), Duration.ofMinutes(30));
+        neighbour = index.asSet().higher(probe);
+    }
+
+    @Benchmark
+    public boolean indexedCheck() {
+        return index.hasOverlap(probe);
+    }
+
+    @Benchmark
+    public boolean gridCheck() {
+        return gridIndex.hasOverlap(probe);
+    }
+
+    @Benchmark
+    public boolean conflictCheck() {
+        return index.hasOverlap(conflicting);
+    }
+
+    @Benchmark
+    public boolean pairCheck() {
+        return conflicting.overlapsInTime(neighbour);
+    }
+
+    @Benchmark
+    public boolean legacyPairCheck() {
+        return isTimeOverlap(conflicting, neighbour);
+    }
+
+    // Прежняя реализация InMemoryTaskManager.hasTimeOverlapWithAnyTask
+    @Benchmark
+    public boolean linearScan() {
+        return index.asSet().stream()
+                .filter(t -> !t.equals(probe))
+                .anyMatch(t -> isTimeOverlap(probe, t));
+    }
+
+    private static boolean isTimeOverlap(Task task1, Task task2) {
+        LocalDateTime start1 = task1.getStartTime();
+        LocalDateTime end1 = start1.plus(task1.getDuration());
+        LocalDateTime start2 = task2.getStartTime();
+        LocalDateTime end2 = start2.plus(task2.getDuration());
+        return start1.isBefore(end2) && start2.isBefore(end1);
+    }
+}
@@ -3,84 +3,83 @@ package ru.yandex.practicum.entity;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
 
 public class Epic extends Task {
 
-    protected Map<Integer, Task> subtasks;
+    protected SubtaskMap subtasks;
+    // у копии время зафиксировано на момент копирования; null - берётся из агрегатов подзадач
+    private Times copiedTimes;
+
+    private record Times(LocalDateTime startTime, LocalDateTime endTime, Duration duration) {
+    }
 
 
     public Epic(String name, String description) {
         super(name, description);
-        subtasks = new HashMap<>();
+        subtasks = new SubtaskMap();
     }
 
     public Epic(int id, String name, String description) { //запись из файла
         super(id, name, description, null, null);
-        subtasks = new HashMap<>();
+        subtasks = new SubtaskMap();
         recountStatus();
     }
 
-    public Epic(int id, String name, String description, Map<Integer, Task> subtasks) { // при обновлении
+    public Epic(int id, String name, String description, Map<Integer, Task> subtasks) {
         super(id, name, description, null, null);
-        this.subtasks = subtasks;
+        this.subtasks = new SubtaskMap(subtasks);
         removeNonSubtaskItems();
         recountStatus();
     }
 
-    // конструктор копирования
+    public Epic(int id, String name, String description, Epic previous) { // при обновлении
+        super(id, name, description, null, null);
+        // карта подзадач старой версии эпика передаётся вместе с агрегатами
+        this.subtasks = previous.subtasks;
+        this.status = subtasks.status();
+    }
+
+    // конструктор копирования: статус и время копии не меняются вместе с подзадачами оригинала
     public Epic(Epic other) {
         super(other);
         this.subtasks = other.subtasks;
+        this.copiedTimes = new Times(other.getStartTime(), other.getEndTime(), other.getDuration());
     }
 
     public Epic copy() {
         return new Epic(this);
     }
 
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.EPIC;
+    }
+
+    // Время начала, конца и длительность берутся из агрегатов, которые обновляются вместе с подзадачами
+
     @Override
     public LocalDateTime getStartTime() {
-        if (subtasks.isEmpty()) {
-            return null;
-        }
-        return subtasks.values().stream()
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
+        return copiedTimes != null ? copiedTimes.startTime() : aggregates().getStartTime();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        if (subtasks.isEmpty()) {
-            return null;
-        }
-        return subtasks.values().stream()
-                .map(Task::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+        return copiedTimes != null ? copiedTimes.endTime() : aggregates().getEndTime();
     }
 
     @Override
     public Duration getDuration() {
-        return subtasks.values().stream()
-                .map(Task::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus);
+        return copiedTimes != null ? copiedTimes.duration() : aggregates().getDuration();
     }
 
+    private SubtaskMap aggregates() {
+        return subtasks;
+    }
 
     public void removeNonSubtaskItems() {
-
-        for (Task task : subtasks.values()) {
-            if (!(task instanceof Subtask)) {
-                subtasks.remove(task.getId());
-            }
-        }
+        subtasks.removeNonSubtasks();
     }
 
     public void addSubtask(Subtask subtask) {
@@ -93,13 +92,19 @@ public class Epic extends Task {
         recountStatus();
     }
 
+    public void clearSubtasks() {
+        subtasks.clear();
+        recountStatus();
+    }
+
+    // копия подзадач: менять их можно только через addSubtask/deleteSubtask/clearSubtasks
     public Map<Integer, Task> getSubtasks() {
-        return subtasks;
+        return subtasks.snapshot();
     }
 
     public String getSubtasksListAsString() {
         StringBuilder sb = new StringBuilder();
-        for (Task task : subtasks.values()) {
+        for (Task task : subtasks.snapshot().values()) {
             if (!sb.isEmpty()) {
                 sb.append(", ");
             }
@@ -115,37 +120,7 @@ public class Epic extends Task {
      * Если все подзадачи DONE → эпик DONE
      */
     public void recountStatus() {
-        if (subtasks.isEmpty()) {
-            status = Status.NEW;
-            return;
-        }
-        boolean allDone = true;
-        boolean allNew = true;
-        boolean anyInProgress = false;
-
-        for (Task subtask : subtasks.values()) {
-            Status subtaskStatus = subtask.getStatus();
-
-            if (subtaskStatus == Status.IN_PROGRESS) {
-                anyInProgress = true;
-            }
-
-            if (subtaskStatus != Status.DONE) {
-                allDone = false;
-            }
-
-            if (subtaskStatus != Status.NEW) {
-                allNew = false;
-            }
-        }
-
-        if (anyInProgress || (!allNew && !allDone)) {
-            status = Status.IN_PROGRESS;
-        } else if (allNew) {
-            status = Status.NEW;
-        } else {
-            status = Status.DONE;
-        }
+        status = aggregates().status();
     }
 
     @Override
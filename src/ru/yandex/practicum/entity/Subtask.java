@@ -13,8 +13,8 @@ public class Subtask extends Task {
 
     public Subtask(String name, String description, Epic parentEpic, LocalDateTime startTime, Duration duration) {
         super(name, description, startTime, duration);
+        // в эпик подзадача попадёт, когда менеджер выдаст ей id
         this.parentEpic = parentEpic;
-        this.parentEpic.addSubtask(this);
     }
 
     public Subtask(int id, String name, String description, Status status,
@@ -34,11 +34,22 @@ public class Subtask extends Task {
         this.parentEpic = other.parentEpic.copy();
     }
 
+    @Override
+    public void assignId(int id) {
+        super.assignId(id);
+        parentEpic.addSubtask(this);
+    }
+
     public Subtask copy() {
         return new Subtask(this);
     }
 
 
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.SUBTASK;
+    }
+
     public Epic getParentEpic() {
         return parentEpic;
     }
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.entity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Подзадачи эпика вместе с агрегатами по ним: самое раннее начало, самый поздний конец,
+ * суммарная длительность и количество подзадач в каждом статусе.
+ * <p>
+ * Агрегаты обновляются при каждом put/remove/clear за O(log n), поэтому геттеры эпика
+ * не обходят все подзадачи. Карта и агрегаты меняются и читаются только под монитором
+ * SubtaskMap, поэтому читатель не увидит подзадачу без её вклада в агрегаты; наружу
+ * подзадачи отдаются копией (snapshot).
+ * <p>
+ * Агрегаты хранятся вместе с картой, а не в эпике, потому что при обновлении эпика
+ * новая версия получает ту же карту подзадач, что и старая.
+ */
+final class SubtaskMap {
+    private final Map<Integer, Task> subtasks = new HashMap<>();
+    // мультимножества начал и концов: время -> количество подзадач
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private final int[] statusCounts = new int[Status.values().length];
+    private Duration totalDuration = Duration.ZERO;
+
+    SubtaskMap() {
+    }
+
+    SubtaskMap(Map<Integer, Task> subtasks) {
+        subtasks.forEach(this::put);
+    }
+
+    synchronized void put(int id, Task task) {
+        Task old = subtasks.put(id, task);
+        if (old != null) {
+            unaccount(old);
+        }
+        account(task);
+    }
+
+    synchronized void remove(int id) {
+        Task old = subtasks.remove(id);
+        if (old != null) {
+            unaccount(old);
+        }
+    }
+
+    // убирает из карты всё, что не подзадача (например, переданное в конструктор эпика по ошибке)
+    synchronized void removeNonSubtasks() {
+        subtasks.values().removeIf(task -> {
+            if (task instanceof Subtask) {
+                return false;
+            }
+            unaccount(task);
+            return true;
+        });
+    }
+
+    synchronized void clear() {
+        subtasks.clear();
+        startTimes.clear();
+        endTimes.clear();
+        Arrays.fill(statusCounts, 0);
+        totalDuration = Duration.ZERO;
+    }
+
+    synchronized boolean containsKey(int id) {
+        return subtasks.containsKey(id);
+    }
+
+    synchronized Map<Integer, Task> snapshot() {
+        return new HashMap<>(subtasks);
+    }
+
+    synchronized LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    synchronized LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    synchronized Duration getDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * Если есть хотя бы одна подзадача IN_PROGRESS → IN_PROGRESS
+     * Если есть смесь статусов (не все NEW и не все DONE) → IN_PROGRESS
+     * Если все подзадачи NEW (или подзадач нет) → NEW
+     * Если все подзадачи DONE → DONE
+     */
+    synchronized Status status() {
+        int total = subtasks.size();
+        if (total == 0 || statusCounts[Status.NEW.ordinal()] == total) {
+            return Status.NEW;
+        }
+        if (statusCounts[Status.DONE.ordinal()] == total) {
+            return Status.DONE;
+        }
+        // есть подзадача IN_PROGRESS или смесь NEW и DONE
+        return Status.IN_PROGRESS;
+    }
+
+    private void account(Task task) {
+        increment(startTimes, task.getStartTime());
+        increment(endTimes, task.getEndTime());
+        if (task.getStatus() != null) {
+            statusCounts[task.getStatus().ordinal()]++;
+        }
+        if (task.getDuration() != null) {
+            totalDuration = totalDuration.plus(task.getDuration());
+        }
+    }
+
+    private void unaccount(Task task) {
+        decrement(startTimes, task.getStartTime());
+        decrement(endTimes, task.getEndTime());
+        if (task.getStatus() != null) {
+            statusCounts[task.getStatus().ordinal()]--;
+        }
+        if (task.getDuration() != null) {
+            totalDuration = totalDuration.minus(task.getDuration());
+        }
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.annotations.Expose;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
@@ -22,7 +23,17 @@ public class Task implements Comparable<Task> {
     @Expose
     private Duration duration;
 
-    public static int counter;
+    // Конец и минуты эпохи считаются один раз в конструкторе: startTime и duration после него не меняются,
+    // поэтому проверки расписания сравнивают числа и не создают LocalDateTime на каждое сравнение.
+    // transient - в JSON не попадают; у задачи, созданной Gson без конструктора, timesReady = false
+    private transient boolean timesReady;
+    private transient LocalDateTime endTime;
+    private transient boolean minutePrecise;  // начало и конец - целые минуты
+    private transient long startMinute;
+    private transient long endMinute;
+
+    // id задачи, ещё не добавленной в менеджер: id выдаёт менеджер при addTask
+    public static final int NO_ID = 0;
     @Expose
     public static final DateTimeFormatter DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
@@ -30,17 +41,17 @@ public class Task implements Comparable<Task> {
     public static final long MAX_DURATION_MINUTES = TimeUnit.DAYS.toMinutes(30);  // например, 30 дней
 
     public Task(String name, String description) {
-        this.id = generateId();
+        this.id = NO_ID;
         this.name = name;
         this.description = description;
         this.status = Status.NEW;
+        setTimes(null, null);
     }
 
 
     public Task(String name, String description, LocalDateTime startTime, Duration duration) {
         this(name, description);
-        this.startTime = startTime;
-        this.duration = duration;
+        setTimes(startTime, duration);
 
     }
 
@@ -49,8 +60,7 @@ public class Task implements Comparable<Task> {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.startTime = startTime;
-        this.duration = duration;
+        setTimes(startTime, duration);
 
     }
 
@@ -66,22 +76,45 @@ public class Task implements Comparable<Task> {
         this.name = other.name;
         this.description = other.description;
         this.status = other.status;
-        this.duration = other.duration;
-        this.startTime = other.startTime;
+        setTimes(other.startTime, other.duration);
     }
 
-    public Task copy() {
-        return new Task(this);
+    private void setTimes(LocalDateTime startTime, Duration duration) {
+        this.startTime = startTime;
+        this.duration = duration;
+        this.endTime = startTime == null || duration == null ? null : startTime.plus(duration);
+        this.minutePrecise = endTime != null && isWholeMinute(startTime) && isWholeMinute(endTime);
+        if (minutePrecise) {
+            this.startMinute = startTime.toEpochSecond(ZoneOffset.UTC) / 60;
+            this.endMinute = endTime.toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+        this.timesReady = true;
+    }
+
+    private static boolean isWholeMinute(LocalDateTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0;
     }
 
-    public int generateId() {
-        return ++counter;
+    public Task copy() {
+        return new Task(this);
     }
 
     public int getId() {
         return id;
     }
 
+    public boolean hasId() {
+        return id != NO_ID;
+    }
+
+    // вызывается менеджером при добавлении задачи без id
+    public void assignId(int id) {
+        if (hasId()) {
+            throw new IllegalStateException("У задачи уже есть id " + this.id);
+        }
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -103,7 +136,7 @@ public class Task implements Comparable<Task> {
     }
 
     public TaskType getTaskType() {
-        return TaskType.valueOf(this.getClass().getSimpleName().toUpperCase());
+        return TaskType.TASK;
     }
 
     public Duration getDuration() {
@@ -115,10 +148,30 @@ public class Task implements Comparable<Task> {
     }
 
     public LocalDateTime getEndTime() {
-        if (startTime == null || duration == null) {
-            return null;
+        if (!timesReady) {
+            return startTime == null || duration == null ? null : startTime.plus(duration);
         }
-        return startTime.plus(duration);
+        return endTime;
+    }
+
+    /**
+     * Пересекаются ли интервалы [startTime, endTime) двух задач расписания (у обеих есть начало
+     * и длительность). Новых объектов не создаёт: если обе задачи в целых минутах - сравнение
+     * минут эпохи, иначе - точное сравнение с сохранённым концом.
+     */
+    public boolean overlapsInTime(Task other) {
+        if (minutePrecise && other.minutePrecise) {
+            return startMinute < other.endMinute && other.startMinute < endMinute;
+        }
+        return getStartTime().isBefore(other.getEndTime()) && other.getStartTime().isBefore(getEndTime());
+    }
+
+    // Заканчивается ли задача позже момента начала other (у обеих есть начало и длительность)
+    public boolean endsAfterStartOf(Task other) {
+        if (minutePrecise && other.minutePrecise) {
+            return endMinute > other.startMinute;
+        }
+        return getEndTime().isAfter(other.getStartTime());
     }
 
     @Override
@@ -149,6 +202,9 @@ public class Task implements Comparable<Task> {
             return 0;
         }
         // Если у обеих задач есть startTime - сравниваем их
+        if (minutePrecise && other.minutePrecise) {
+            return Long.compare(startMinute, other.startMinute);
+        }
         return startTime.compareTo(other.getStartTime());
     }
 
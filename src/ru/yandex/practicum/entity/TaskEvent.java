@@ -0,0 +1,55 @@
+package ru.yandex.practicum.entity;
+
+import com.google.gson.annotations.Expose;
+
+/**
+ * Изменение доски: создание, обновление или удаление задачи либо очистка.
+ * <p>
+ * seq - номер события, растёт на 1 с каждым изменением. У CLEARED нет задачи: taskType - очищенный тип,
+ * null - очищена вся доска. Очистка эпиков удаляет и их подзадачи.
+ */
+public final class TaskEvent {
+    @Expose
+    private final long seq;
+    @Expose
+    private final TaskEventType type;
+    @Expose
+    private final TaskType taskType;
+    @Expose
+    private final Integer id;
+    @Expose
+    private final Task task;
+
+    public TaskEvent(long seq, TaskEventType type, TaskType taskType, Task task) {
+        this.seq = seq;
+        this.type = type;
+        this.taskType = taskType;
+        this.id = task == null ? null : task.getId();
+        this.task = task;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + seq + " " + type + " " + (taskType == null ? "ALL" : taskType) + (id == null ? "" : " " + id);
+    }
+}
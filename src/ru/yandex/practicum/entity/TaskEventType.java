@@ -0,0 +1,8 @@
+package ru.yandex.practicum.entity;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    CLEARED
+}
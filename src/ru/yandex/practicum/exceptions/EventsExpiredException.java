@@ -0,0 +1,9 @@
+package ru.yandex.practicum.exceptions;
+
+public class EventsExpiredException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public EventsExpiredException(String message) {
+        super(message);
+    }
+}
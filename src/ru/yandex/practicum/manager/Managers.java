@@ -1,6 +1,8 @@
 package ru.yandex.practicum.manager;
 
 
+import ru.yandex.practicum.service.ConcurrentHistoryManager;
+import ru.yandex.practicum.service.ConcurrentTaskManager;
 import ru.yandex.practicum.service.HistoryManager;
 import ru.yandex.practicum.service.InMemoryHistoryManager;
 import ru.yandex.practicum.service.InMemoryTaskManager;
@@ -27,7 +29,17 @@ public class Managers {
         // FileBackedTaskManager.loadFromFile(tasksFile);
     }
 
+    // потокобезопасный менеджер для HTTP-сервера, обрабатывающего запросы параллельно
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // история для многопоточного менеджера
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Менеджер с асинхронной записью: изменение подтверждается сразу после обновления в памяти,
+ * снимок записывает отдельный поток.
+ * <p>
+ * 1. Поток записи переписывает снимок, как только есть незаписанные изменения; всё, что накопилось
+ * за время записи, попадает в следующий снимок, поэтому частые изменения не выстраиваются в очередь.
+ * 2. Отставание ограничено: если незаписанных изменений больше maxLag (диск не успевает),
+ * awaitAcknowledgement задерживает клиента, пока поток записи не догонит (обратное давление).
+ * При сбое записи клиент узнаёт об этом (ManagerSaveException), когда отставание упрётся в предел.
+ * 3. При остановке HttpTaskServer вызывает flush, и оставшиеся изменения записываются.
+ * <p>
+ * Отличие от GroupCommitTaskManager только в подтверждении: там клиент ждёт записи своего изменения,
+ * здесь - только если отставание больше maxLag. При сбое процесса теряется не больше maxLag изменений
+ * (с учётом клиентов, которые меняют доску одновременно, - на их число больше).
+ */
+public class AsyncFileBackedTaskManager extends GroupCommitTaskManager {
+    public static final int DEFAULT_MAX_LAG = 1_000;
+
+    private final int maxLag;
+
+    public AsyncFileBackedTaskManager(Path path) {
+        this(path, SnapshotFormat.CSV, FsyncPolicy.NEVER, DEFAULT_MAX_LAG);
+    }
+
+    public AsyncFileBackedTaskManager(Path path, SnapshotFormat format, FsyncPolicy fsyncPolicy, int maxLag) {
+        super(path, format, fsyncPolicy, Duration.ZERO);
+        if (maxLag < 1) {
+            throw new IllegalArgumentException("Допустимое отставание записи должно быть больше 0");
+        }
+        this.maxLag = maxLag;
+    }
+
+    public static AsyncFileBackedTaskManager loadFromFile(File file, FsyncPolicy fsyncPolicy, int maxLag) {
+        AsyncFileBackedTaskManager manager = new AsyncFileBackedTaskManager(file.toPath(), detectFormat(file.toPath()),
+                fsyncPolicy, maxLag);
+        manager.load();
+        manager.start();
+        return manager;
+    }
+
+    public int getMaxLag() {
+        return maxLag;
+    }
+
+    @Override
+    public void awaitAcknowledgement() {
+        awaitPendingAtMost(maxLag);
+    }
+}
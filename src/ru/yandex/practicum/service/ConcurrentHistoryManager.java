@@ -0,0 +1,170 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Task;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Потокобезопасная история просмотров для параллельной обработки запросов.
+ * <p>
+ * 1. add не ждёт других потоков: просмотр кладётся в общую неблокирующую очередь
+ * (ConcurrentLinkedQueue), порядок в ней - порядок просмотров.
+ * 2. Очередь переносится в обычную {@link InMemoryHistoryManager} пачками под одной блокировкой.
+ * Переносит тот поток, которому удалось взять её через tryLock; остальные просто выходят,
+ * их просмотры перенесёт текущий владелец или следующий вызов.
+ * 3. getHistory, remove и clear сначала переносят всё, что было в очереди к началу вызова,
+ * поэтому видят все завершённые add, и работают с историей целиком: снимок упорядочен,
+ * без повторов и пропусков. Готовый снимок отдаётся без блокировки, пока нет новых просмотров.
+ * 4. Если очередь выросла до MAX_PENDING, add ждёт блокировку и переносит её сам:
+ * память под очередь ограничена, даже когда перенос не успевает за просмотрами.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    static final int MAX_PENDING = 1024;
+
+    private final InMemoryHistoryManager history;
+    private final ConcurrentLinkedQueue<Task> pending = new ConcurrentLinkedQueue<>();
+    // увеличивается до постановки в очередь, уменьшается после переноса в историю
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // увеличивается после изменения: версия, прочитанная до getHistory, не новее полученной истории
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile List<Task> snapshot;  // null - история изменилась после последнего чтения
+
+    public ConcurrentHistoryManager() {
+        this(InMemoryHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        this.history = new InMemoryHistoryManager(capacity);
+    }
+
+    /**
+     * onEvicted получает id задачи, которую вытеснила ёмкость, если более свежего просмотра
+     * этой задачи нет и в очереди. Вызывается под блокировкой переноса.
+     */
+    ConcurrentHistoryManager(int capacity, IntConsumer onEvicted) {
+        this.history = new InMemoryHistoryManager(capacity, id -> {
+            if (!isPending(id)) {
+                onEvicted.accept(id);
+            }
+        });
+    }
+
+    public int getCapacity() {
+        return history.getCapacity();
+    }
+
+    public int size() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.size();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        int queued = pendingCount.incrementAndGet();
+        // копия снимается в момент просмотра, а не при переносе в историю
+        pending.offer(task.copy());
+        version.incrementAndGet();
+        if (queued >= MAX_PENDING) {
+            drainLock.lock();
+        } else if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drain();
+            history.remove(id);
+            snapshot = null;
+            version.incrementAndGet();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        drainLock.lock();
+        try {
+            drain();
+            history.clear();
+            snapshot = null;
+            version.incrementAndGet();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        if (pendingCount.get() == 0) {
+            List<Task> current = snapshot;
+            if (current != null) {
+                return current;
+            }
+        }
+        drainLock.lock();
+        try {
+            drain();
+            List<Task> current = history.getHistory();
+            snapshot = current;
+            return current;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private boolean isPending(int id) {
+        if (pendingCount.get() == 0) {
+            return false;
+        }
+        for (Task task : pending) {
+            if (task.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Переносит не больше, чем было в очереди к началу переноса: при непрерывных просмотрах
+    // вызывающий поток не застревает здесь навсегда
+    private void drain() {
+        int limit = pendingCount.get();
+        for (int i = 0; i < limit; i++) {
+            Task task = pending.poll();
+            if (task == null) {
+                return;
+            }
+            history.record(task);
+            snapshot = null;
+            pendingCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.*;
+import ru.yandex.practicum.exceptions.WrongParentEpicException;
+import ru.yandex.practicum.manager.Managers;
+import ru.yandex.practicum.service.id.AtomicIdAllocator;
+import ru.yandex.practicum.service.id.IdAllocator;
+import ru.yandex.practicum.service.schedule.TimeIntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный менеджер задач: изменения эпика и его подзадач идут под блокировкой полосы эпика,
+ * а блокировка расписания берётся, только если изменение касается задачи со временем.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+
+    // полосы: эпик и его подзадачи - полоса id эпика, обычная задача - полоса своего id
+    private final Lock[] stripeLocks = new Lock[STRIPES];
+    // порядок захвата: сначала полосы (по возрастанию номера), затем расписание
+    private final Lock scheduleLock = new ReentrantLock();
+
+    public ConcurrentTaskManager() {
+        this(new AtomicIdAllocator());
+    }
+
+    public ConcurrentTaskManager(IdAllocator idAllocator) {
+        super(idAllocator);
+        this.tasks = new ConcurrentHashMap<>();
+        for (TaskType taskType : TaskType.values()) {
+            tasksByType.put(taskType, new ConcurrentSkipListMap<>());
+        }
+        this.prioritizedTasks = TimeIntervalIndex.concurrent();
+        this.historyManager = Managers.getConcurrentHistory();
+        for (int i = 0; i < STRIPES; i++) {
+            stripeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        withLocks(lockFor(task), () -> TimeIntervalIndex.isScheduled(task) || isScheduledNow(task), () -> {
+            // эпик мог быть удалён после проверки в обработчике: под его блокировкой это видно точно
+            if (task instanceof Subtask subtask && !(tasks.get(subtask.getParentEpic().getId()) instanceof Epic)) {
+                throw new WrongParentEpicException("Родительской задачи " + subtask.getParentEpic().getId()
+                        + " не существует.");
+            }
+            super.addTask(task);
+            return null;
+        });
+    }
+
+    // пачка может касаться любых эпиков: как при очистке, берутся все полосы
+    @Override
+    public void addTasks(Collection<Task> batch) {
+        withAllLocks(() -> super.addTasks(batch));
+    }
+
+    @Override
+    public boolean deleteTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        return withLocks(lockFor(task), () -> TimeIntervalIndex.isScheduled(task) || isScheduledNow(task)
+                        || task instanceof Epic epic && hasScheduledSubtasks(epic),
+                () -> super.deleteTask(task));
+    }
+
+    @Override
+    public void clearAllTasks() {
+        withAllLocks(super::clearAllTasks);
+    }
+
+    // очистка типа - одно событие CLEARED, поэтому она, как clearAllTasks, идёт под всеми блокировками
+    @Override
+    public void clearTasksByType(TaskType taskType) {
+        withAllLocks(() -> super.clearTasksByType(taskType));
+    }
+
+    // поиск промежутка и вставка - под блокировкой расписания, чтобы промежуток не заняли между ними
+    @Override
+    public Task placeTask(TaskType taskType, String name, String description, Epic parentEpic, Duration duration,
+                          LocalDateTime from, LocalDateTime to) {
+        Lock stripeLock = taskType == TaskType.SUBTASK ? lockFor(parentEpic) : null;
+        return withLocks(stripeLock, () -> true,
+                () -> super.placeTask(taskType, name, description, parentEpic, duration, from, to));
+    }
+
+    @Override
+    public Task updateTask(TaskType taskType, int id, String name, String description, Status status,
+                           LocalDateTime startTime, Duration duration) {
+        return withLocks(lockFor(tasks.get(id)), () -> false,
+                () -> super.updateTask(taskType, id, name, description, status, startTime, duration));
+    }
+
+    // карту занятости читают без блокировок (поиск промежутков), а она не потокобезопасна
+    @Override
+    public void enableOccupancyGrid(Duration bucket) {
+        throw new UnsupportedOperationException("ConcurrentTaskManager не поддерживает карту занятости");
+    }
+
+    @Override
+    public Optional<Task> getTaskById(int id) {
+        return Optional.ofNullable(tasks.get(id));
+    }
+
+    @Override
+    public Map<Integer, Task> getAllTasks() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    @Override
+    public Optional<Map<Integer, Task>> getSubtasksByEpic(Epic epic) {
+        Lock epicLock = stripeLocks[stripe(epic.getId())];
+        epicLock.lock();
+        try {
+            // копия: подзадачи эпика меняются только под его блокировкой
+            Map<Integer, Task> subtasks = epic.getSubtasks();
+            return subtasks.isEmpty() ? Optional.empty() : Optional.of(subtasks);
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    // Полоса, под которой меняется задача; у новой задачи без эпика полосы нет - её id ещё никто не знает
+    private Lock lockFor(Task task) {
+        if (task instanceof Epic epic) {
+            return stripeLocks[stripe(epic.getId())];
+        }
+        if (task instanceof Subtask subtask) {
+            return stripeLocks[stripe(subtask.getParentEpic().getId())];
+        }
+        return task != null && task.hasId() ? stripeLocks[stripe(task.getId())] : null;
+    }
+
+    // Версия задачи в менеджере стоит в расписании (при замене или удалении её нужно оттуда убрать)
+    private boolean isScheduledNow(Task task) {
+        return task.hasId() && TimeIntervalIndex.isScheduled(tasks.get(task.getId()));
+    }
+
+    private static boolean hasScheduledSubtasks(Epic epic) {
+        for (Task subtask : epic.getSubtasks().values()) {
+            if (TimeIntervalIndex.isScheduled(subtask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // needsSchedule проверяется уже под блокировкой полосы, когда задачу никто не меняет
+    private <T> T withLocks(Lock stripeLock, BooleanSupplier needsSchedule, Supplier<T> action) {
+        if (stripeLock != null) {
+            stripeLock.lock();
+        }
+        try {
+            if (!needsSchedule.getAsBoolean()) {
+                return action.get();
+            }
+            scheduleLock.lock();
+            try {
+                return action.get();
+            } finally {
+                scheduleLock.unlock();
+            }
+        } finally {
+            if (stripeLock != null) {
+                stripeLock.unlock();
+            }
+        }
+    }
+
+    private void withAllLocks(Runnable action) {
+        for (Lock lock : stripeLocks) {
+            lock.lock();
+        }
+        try {
+            scheduleLock.lock();
+            try {
+                action.run();
+            } finally {
+                scheduleLock.unlock();
+            }
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripeLocks[i].unlock();
+            }
+        }
+    }
+
+    private static int stripe(int epicId) {
+        return Math.floorMod(Integer.hashCode(epicId) * 0x9E3779B9, STRIPES);
+    }
+}
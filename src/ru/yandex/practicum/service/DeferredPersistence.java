@@ -0,0 +1,16 @@
+package ru.yandex.practicum.service;
+
+/**
+ * Менеджер, который записывает изменения в файл не в момент изменения, а отдельным потоком.
+ * <p>
+ * SynchronizedTaskManager после каждого изменения, уже отпустив свою блокировку, вызывает
+ * awaitAcknowledgement: пока один запрос ждёт записи, другие могут менять доску.
+ */
+public interface DeferredPersistence {
+
+    // Ждёт, пока изменения, сделанные до вызова, можно подтвердить клиенту
+    void awaitAcknowledgement();
+
+    // Записывает все сделанные изменения и ждёт окончания записи
+    void flush();
+}
@@ -3,64 +3,375 @@ package ru.yandex.practicum.service;
 import ru.yandex.practicum.entity.*;
 import ru.yandex.practicum.exceptions.ManagerSaveException;
 import ru.yandex.practicum.exceptions.TimeConflictException;
+import ru.yandex.practicum.service.snapshot.AtomicFileWriter;
+import ru.yandex.practicum.service.snapshot.BinarySnapshot;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.MappedSnapshot;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
-    private Path path;
+    protected static final String CSV_HEADER = "id,type,name,status,description,epic,startTime,duration";
+    // наибольший выданный id: после удаления последних задач их id не выдаются повторно
+    protected static final String LAST_ID_PREFIX = "lastId=";
+    // отложенные сбросы на диск для FsyncPolicy.every всех менеджеров; поток создаётся при первом сбросе
+    private static final ScheduledExecutorService SYNC_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fsync-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final Path path;
+    // формат, в котором пишется снимок; загрузка определяет формат по содержимому файла
+    protected final SnapshotFormat format;
+    protected final FsyncPolicy fsyncPolicy;
+    private volatile long lastSyncMillis;
+    private final AtomicBoolean syncScheduled = new AtomicBoolean();
+    // сколько потоков разбирают снимок при загрузке (см. ParallelSnapshotLoader); 1 - последовательно,
+    // 0 - по числу ядер, если файл не меньше ParallelSnapshotLoader.MIN_PARALLEL_BYTES
+    private int loadParallelism;
 
     public FileBackedTaskManager(Path path) {
+        this(path, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(Path path, SnapshotFormat format) {
+        this(path, format, FsyncPolicy.NEVER);
+    }
+
+    public FileBackedTaskManager(Path path, SnapshotFormat format, FsyncPolicy fsyncPolicy) {
         super();
         this.path = path;
+        this.format = format;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
     }
 
     @Override
     public void addTask(Task task) {
         super.addTask(task);
-        save();
+        onTaskAdded(task);
+    }
+
+    // пачка сохраняется один раз
+    @Override
+    public void addTasks(Collection<Task> batch) {
+        super.addTasks(batch);
+        onTasksAdded(batch);
     }
 
     @Override
     public void clearAllTasks() {
         super.clearAllTasks();
-        save();
+        onTasksCleared();
     }
 
     @Override
-    public boolean deleteTask(Task task) {
-        boolean isDeleted = super.deleteTask(task);
-        save();
+    protected boolean deleteTask(Task task, boolean publishEvents) {
+        boolean isDeleted = super.deleteTask(task, publishEvents);
+        if (isDeleted) {
+            onTaskDeleted(task);
+        }
         return isDeleted;
     }
 
+    // Точки расширения для режимов сохранения: по умолчанию любое изменение переписывает файл целиком
+    protected void onTaskAdded(Task task) {
+        save();
+    }
+
+    protected void onTasksAdded(Collection<Task> batch) {
+        save();
+    }
+
+    protected void onTaskDeleted(Task task) {
+        save();
+    }
+
+    protected void onTasksCleared() {
+        save();
+    }
+
+    protected String snapshotHeader() {
+        return CSV_HEADER + "," + LAST_ID_PREFIX + idAllocator.lastId();
+    }
+
+    // Значение вида prefix=число из заголовка снимка, 0 если его нет
+    protected static long readHeaderValue(String header, String prefix) {
+        if (header == null) {
+            return 0;
+        }
+        for (String field : header.split(",")) {
+            if (field.startsWith(prefix)) {
+                return Long.parseLong(field.substring(prefix.length()).trim());
+            }
+        }
+        return 0;
+    }
+
     public void save() {
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            writer.write("id,type,name,status,description,epic,startTime,duration" + System.lineSeparator());
-            for (Task task : tasks.values()) {
-                String processedLine = task.writeToString() + System.lineSeparator();
-                writer.write(processedLine);
+        exportTo(path, format);
+    }
+
+    /**
+     * Записывает снимок доски в файл target в формате targetFormat (например, для перевода
+     * доски из CSV в двоичный формат, см. SnapshotConverter). Файл самого менеджера не меняется.
+     * <p>
+     * Снимок пишется во временный файл и атомарно заменяет target (см. AtomicFileWriter):
+     * оборванная запись оставляет прежний файл целым. Сброс на диск - по fsyncPolicy.
+     */
+    public void exportTo(Path target, SnapshotFormat targetFormat) {
+        writeFile(target, out -> writeSnapshot(out, targetFormat));
+    }
+
+    /**
+     * Снимок доски в памяти. Менеджер, который пишет файл отдельным потоком, получает снимок
+     * под своей блокировкой, а записывает (writeEncodedSnapshot) уже без неё.
+     */
+    protected byte[] encodeSnapshot() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            writeSnapshot(buffer, format);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось подготовить снимок " + path, e);
+        }
+        return buffer.toByteArray();
+    }
+
+    protected void writeEncodedSnapshot(byte[] snapshot) {
+        writeFile(path, out -> {
+            try (out) {
+                out.write(snapshot);
             }
+        });
+    }
+
+    private void writeFile(Path target, AtomicFileWriter.Content content) {
+        long now = System.currentTimeMillis();
+        boolean sync = isSyncDue(now);
+        try {
+            AtomicFileWriter.write(target, sync, out -> content.writeTo(snapshotStream(out)));
         } catch (IOException e) {
-            throw new ManagerSaveException("Не удалось сохранить в файл " + path.toString());
+            throw new ManagerSaveException("Не удалось сохранить в файл " + target.toString(), e);
+        }
+        if (sync) {
+            markSynced(now);
+        } else {
+            scheduleSync(now);
         }
     }
 
+    // Нужно ли сбросить на диск запись, начатую в момент now
+    protected boolean isSyncDue(long now) {
+        return fsyncPolicy.isDue(lastSyncMillis, now);
+    }
+
+    protected void markSynced(long now) {
+        lastSyncMillis = now;
+    }
+
+    /**
+     * Запись в момент now оставила несброшенные данные: при FsyncPolicy.every сброс откладывается
+     * на конец интервала (один на все записи интервала), поэтому последние записи перед простоем
+     * тоже попадают на диск не позже чем через интервал.
+     */
+    protected void scheduleSync(long now) {
+        if (fsyncPolicy.isPeriodic() && syncScheduled.compareAndSet(false, true)) {
+            SYNC_TIMER.schedule(this::runScheduledSync, fsyncPolicy.millisUntilDue(lastSyncMillis, now),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runScheduledSync() {
+        // флаг снимается до сброса: запись во время сброса назначит следующий
+        syncScheduled.set(false);
+        long now = System.currentTimeMillis();
+        try {
+            syncPending();
+            markSynced(now);
+        } catch (IOException | RuntimeException e) {
+            // данные остаются в кэше ОС; следующая запись назначит сброс заново
+            System.out.println("Не удалось сбросить на диск " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Сбрасывает на диск уже записанный снимок (и переименование в каталоге)
+    protected void syncPending() throws IOException {
+        if (Files.exists(path)) {
+            AtomicFileWriter.sync(path);
+        }
+    }
+
+    // Точка расширения для потока снимка (подсчёт байт, сжатие; в тестах - обрыв записи)
+    protected OutputStream snapshotStream(OutputStream out) {
+        return out;
+    }
+
+    private void writeSnapshot(OutputStream out, SnapshotFormat targetFormat) throws IOException {
+        switch (targetFormat) {
+            case CSV -> writeCsv(out);
+            case BINARY -> BinarySnapshot.write(out, snapshotHeader(), tasks.values());
+        }
+    }
+
+    private void writeCsv(OutputStream out) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(snapshotHeader() + System.lineSeparator());
+            // эпики раньше подзадач: при загрузке эпик подзадачи уже известен
+            for (TaskType taskType : List.of(TaskType.EPIC, TaskType.TASK, TaskType.SUBTASK)) {
+                for (Task task : tasksByType.get(taskType).values()) {
+                    String processedLine = task.writeToString() + System.lineSeparator();
+                    writer.write(processedLine);
+                }
+            }
+        }
+    }
+
+    // Формат снимка сохраняется: загруженный из двоичного файла менеджер и дальше пишет двоичный
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath());
+        return loadFromFile(file, FsyncPolicy.NEVER);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, FsyncPolicy fsyncPolicy) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath(), detectFormat(file.toPath()),
+                fsyncPolicy);
         manager.load();
         return manager;
     }
 
-    private void load() {
+    // parallelism - число потоков разбора снимка; 1 - последовательная загрузка
+    public static FileBackedTaskManager loadFromFile(File file, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Число потоков загрузки должно быть больше 0");
+        }
+        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath(), detectFormat(file.toPath()));
+        manager.loadParallelism = parallelism;
+        manager.load();
+        return manager;
+    }
+
+    protected static SnapshotFormat detectFormat(Path path) {
+        try {
+            return BinarySnapshot.isBinary(path) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать файл " + path, e);
+        }
+    }
+
+    // Первая строка CSV или заголовок двоичного снимка
+    protected String readSnapshotHeader() {
+        try {
+            if (BinarySnapshot.isBinary(path)) {
+                return BinarySnapshot.readHeader(path);
+            }
+            try (BufferedReader br = Files.newBufferedReader(path)) {
+                return br.readLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать заголовок снимка " + path, e);
+        }
+    }
+
+    protected void load() {
+        loadSnapshot();
+        // загрузка - не изменение доски: событий о загруженных задачах в журнале нет
+        eventLog.truncate();
+    }
+
+    private void loadSnapshot() {
+        int parallelism = loadParallelism;
+        if (parallelism == 0 && fileSize() >= ParallelSnapshotLoader.MIN_PARALLEL_BYTES) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        if (parallelism > 1 && tasks.isEmpty() && loadInParallel(parallelism)) {
+            return;
+        }
+        if (detectFormat(path) == SnapshotFormat.BINARY) {
+            loadBinary();
+        } else {
+            loadCsv();
+        }
+    }
+
+    private long fileSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать файл " + path, e);
+        }
+    }
+
+    // false - снимок так не загрузить (двоичный снимок без индекса), нужна последовательная загрузка
+    private boolean loadInParallel(int parallelism) {
+        try {
+            String header;
+            if (detectFormat(path) == SnapshotFormat.BINARY) {
+                MappedSnapshot snapshot;
+                try {
+                    snapshot = MappedSnapshot.open(path);
+                } catch (IOException e) {
+                    return false;
+                }
+                header = ParallelSnapshotLoader.loadBinary(this, snapshot, parallelism);
+            } else {
+                if (fileSize() > Integer.MAX_VALUE - 8) {
+                    return false;  // больше массива байт
+                }
+                header = ParallelSnapshotLoader.loadCsv(this, path, parallelism);
+            }
+            idAllocator.observe((int) readHeaderValue(header, LAST_ID_PREFIX));
+            return true;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Неверный заголовок файла " + path, e);
+        } catch (TimeConflictException e) {
+            throw new RuntimeException("Загрузка остановлена, обнаружены некорректные данные. " + e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Не удалось прочитать файл " + path, e);
+        }
+    }
+
+    private void loadBinary() {
+        try {
+            String header = BinarySnapshot.read(path, this::createExistingTask);
+            idAllocator.observe((int) readHeaderValue(header, LAST_ID_PREFIX));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Неверный заголовок файла " + path, e);
+        } catch (TimeConflictException e) {
+            throw new RuntimeException("Загрузка остановлена, обнаружены некорректные данные. " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать файл " + path, e);
+        }
+    }
+
+    private void loadCsv() {
         try (BufferedReader br = Files.newBufferedReader(path)) {
-            br.readLine(); // пропуск 1 строки
+            idAllocator.observe((int) readHeaderValue(br.readLine(), LAST_ID_PREFIX));
             String line;
             while ((line = br.readLine()) != null) {
                 if (line.isBlank()) {
@@ -68,6 +379,8 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
                 }
                 createTaskFromCsvLine(line);
             }
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Неверный заголовок файла " + path, e);
         } catch (TimeConflictException e) {
             throw new RuntimeException("Загрузка остановлена, обнаружены некорректные данные. " + e.getMessage());
 
@@ -77,43 +390,57 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     }
 
     public void createTaskFromCsvLine(String value) {
+        parseCsvLine(value, this::createExistingTask);
+    }
+
+    // Разбирает строку CSV и отдаёт поля задачи в sink; у эпика время не читается - оно считается по подзадачам
+    static void parseCsvLine(String value, BinarySnapshot.TaskSink sink) {
         String[] fields = value.split(",", -1);  // -1 сохраняет пустые значения
 
         if (fields.length < 8) {
             throw new RuntimeException("Недостаточно данных в строке: " + value);
         }
 
+        int id;
+        TaskType type;
+        String name;
+        Status status;
+        String description;
+        int parentEpicId = Task.NO_ID;
+        LocalDateTime startTime = null;
+        Duration duration = null;
         try {
-            int id = Integer.parseInt(fields[0].trim());
-            TaskType type = TaskType.valueOf(fields[1].trim().toUpperCase());
-            String name = fields[2].trim();
-            Status status = Status.valueOf(fields[3].trim());
-            String description = fields[4].trim().isEmpty() ? "" : fields[4].trim();
-
-            // Обработка startTime (может быть пустым)
-            LocalDateTime startTime = null;
-            if (!fields[6].trim().isEmpty()) {
-                startTime = LocalDateTime.parse(fields[6].trim(), Task.DATE_TIME_FORMATTER);
-            }
+            id = Integer.parseInt(fields[0].trim());
+            type = TaskType.valueOf(fields[1].trim().toUpperCase());
+            name = fields[2].trim();
+            status = Status.valueOf(fields[3].trim());
+            description = fields[4].trim().isEmpty() ? "" : fields[4].trim();
 
-            // Обработка duration (может быть пустым)
-            Duration duration = null;
-            if (!fields[7].trim().isEmpty()) {
-                duration = Duration.ofMinutes(Long.parseLong(fields[7].trim()));
-            }
+            if (type != TaskType.EPIC) {
+                // Обработка startTime (может быть пустым)
+                if (!fields[6].trim().isEmpty()) {
+                    startTime = LocalDateTime.parse(fields[6].trim(), Task.DATE_TIME_FORMATTER);
+                }
 
-            switch (type) {
-                case TASK -> createExistingTask(id, type, name, description, status, null, startTime, duration);
-                case EPIC -> createExistingTask(id, type, name, description, status, null, null, null);
-                case SUBTASK -> {
-                    Epic parentEpic = (Epic) tasks.get(Integer.parseInt(fields[5]));
-                    createExistingTask(id, type, name, description, status, parentEpic, startTime, duration);
+                // Обработка duration (может быть пустым)
+                if (!fields[7].trim().isEmpty()) {
+                    duration = Duration.ofMinutes(Long.parseLong(fields[7].trim()));
                 }
             }
-            Task.counter = Math.max(Task.counter, id);
+            if (type == TaskType.SUBTASK) {
+                parentEpicId = Integer.parseInt(fields[5]);
+            }
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Неверный формат данных для создания задачи:" + value, e);
         }
+        sink.accept(id, type, name, description, status, parentEpicId, startTime, duration);
+    }
+
+    // Запись снимка или журнала: подзадача получает эпик по parentEpicId
+    private void createExistingTask(int id, TaskType taskType, String name, String description, Status status,
+                                    int parentEpicId, LocalDateTime startTime, Duration duration) {
+        Epic parentEpic = taskType == TaskType.SUBTASK ? (Epic) tasks.get(parentEpicId) : null;
+        createExistingTask(id, taskType, name, description, status, parentEpic, startTime, duration);
     }
 
     public void createExistingTask(int id, TaskType taskType, String name,
@@ -121,7 +448,10 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
                                    LocalDateTime startTime, Duration duration) {
         Task task = switch (taskType) {
             case TASK -> new Task(id, name, description, status, startTime, duration);
-            case EPIC -> new Epic(id, name, description);
+            // при повторной записи эпика (обновление из журнала) подзадачи сохраняются
+            case EPIC -> tasks.get(id) instanceof Epic oldEpic
+                    ? new Epic(id, name, description, oldEpic)
+                    : new Epic(id, name, description);
             case SUBTASK -> new Subtask(id, name, description, status, parentEpic, startTime, duration);
         };
         super.addTask(task);
@@ -0,0 +1,370 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.exceptions.ManagerSaveException;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Менеджер, сохраняющий изменения многих клиентов за короткое окно одной записью снимка.
+ */
+public class GroupCommitTaskManager extends FileBackedTaskManager implements DeferredPersistence, AutoCloseable {
+    public static final Duration DEFAULT_COMMIT_WINDOW = Duration.ofMillis(5);
+    private static final long FAILED_COMMIT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long commitWindowNanos;
+    private Thread committer;  // null - поток записи ещё не запущен
+
+    // запись файла потоком записи и явные save/exportTo не пересекаются
+    private final Object fileLock = new Object();
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition changed = commitLock.newCondition();
+    private final Condition committed = commitLock.newCondition();
+    private long changeSeq;          // номер последнего изменения
+    private long durableSeq;         // изменения до этого номера записаны
+    private long failedSeq;          // изменения до этого номера не удалось записать в последний раз
+    private ManagerSaveException lastFailure;
+    private boolean flushRequested;  // записать без ожидания окна
+    private boolean closed;
+    private boolean stopped;         // поток записи завершился
+    private long commitCount;
+
+    public GroupCommitTaskManager(Path path) {
+        this(path, SnapshotFormat.CSV, FsyncPolicy.NEVER, DEFAULT_COMMIT_WINDOW);
+    }
+
+    public GroupCommitTaskManager(Path path, SnapshotFormat format, FsyncPolicy fsyncPolicy, Duration commitWindow) {
+        super(path, format, fsyncPolicy);
+        if (commitWindow.isNegative()) {
+            throw new IllegalArgumentException("Окно групповой записи не может быть отрицательным");
+        }
+        this.commitWindowNanos = commitWindow.toNanos();
+    }
+
+    public static GroupCommitTaskManager loadFromFile(File file, FsyncPolicy fsyncPolicy, Duration commitWindow) {
+        GroupCommitTaskManager manager = new GroupCommitTaskManager(file.toPath(), detectFormat(file.toPath()),
+                fsyncPolicy, commitWindow);
+        manager.load();
+        manager.start();
+        return manager;
+    }
+
+    /**
+     * Запускает поток записи. До запуска изменения только копятся в памяти: flush и close
+     * записывают их сами, а awaitAcknowledgement бросает IllegalStateException.
+     */
+    public void start() {
+        commitLock.lock();
+        try {
+            if (committer != null) {
+                throw new IllegalStateException("Поток записи уже запущен");
+            }
+            committer = new Thread(this::commitLoop, "group-commit");
+            committer.setDaemon(true);
+            committer.start();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Сколько раз снимок был записан: при групповой записи заметно меньше числа изменений
+    public long getCommitCount() {
+        commitLock.lock();
+        try {
+            return commitCount;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Изменения и подготовка снимка не пересекаются: все изменяющие методы под монитором менеджера
+
+    @Override
+    public synchronized void addTask(Task task) {
+        super.addTask(task);
+    }
+
+    @Override
+    public synchronized void addTasks(Collection<Task> batch) {
+        super.addTasks(batch);
+    }
+
+    @Override
+    public synchronized boolean deleteTask(Task task) {
+        return super.deleteTask(task);
+    }
+
+    @Override
+    public synchronized void clearAllTasks() {
+        super.clearAllTasks();
+    }
+
+    @Override
+    public synchronized void clearTasksByType(TaskType taskType) {
+        super.clearTasksByType(taskType);
+    }
+
+    @Override
+    public synchronized Task createTask(TaskType taskType, String name, String description, Epic parentEpic,
+                                        LocalDateTime startTime, Duration duration) {
+        return super.createTask(taskType, name, description, parentEpic, startTime, duration);
+    }
+
+    @Override
+    public synchronized Task placeTask(TaskType taskType, String name, String description, Epic parentEpic,
+                                       Duration duration, LocalDateTime from, LocalDateTime to) {
+        return super.placeTask(taskType, name, description, parentEpic, duration, from, to);
+    }
+
+    @Override
+    public synchronized Task updateTask(TaskType taskType, int id, String name, String description, Status status,
+                                        LocalDateTime startTime, Duration duration) {
+        return super.updateTask(taskType, id, name, description, status, startTime, duration);
+    }
+
+    @Override
+    public void exportTo(Path target, SnapshotFormat targetFormat) {
+        synchronized (this) {
+            synchronized (fileLock) {
+                super.exportTo(target, targetFormat);
+            }
+        }
+    }
+
+    @Override
+    protected void onTaskAdded(Task task) {
+        markChanged();
+    }
+
+    @Override
+    protected void onTasksAdded(Collection<Task> batch) {
+        markChanged();
+    }
+
+    @Override
+    protected void onTaskDeleted(Task task) {
+        markChanged();
+    }
+
+    @Override
+    protected void onTasksCleared() {
+        markChanged();
+    }
+
+    @Override
+    public void awaitAcknowledgement() {
+        awaitPendingAtMost(0);
+    }
+
+    // Сколько изменений ещё не записано
+    public long getPendingChanges() {
+        commitLock.lock();
+        try {
+            return changeSeq - durableSeq;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Ждёт, пока незаписанными останется не больше maxPending изменений
+    protected void awaitPendingAtMost(long maxPending) {
+        commitLock.lock();
+        try {
+            awaitCommitted(changeSeq - maxPending);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        commitLock.lock();
+        try {
+            if (committer != null) {
+                flushRequested = true;
+                changed.signal();
+                awaitCommitted(changeSeq);
+                return;
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        commitWithoutCommitter();
+    }
+
+    /**
+     * Записывает оставшиеся изменения и останавливает поток записи.
+     */
+    @Override
+    public void close() {
+        commitLock.lock();
+        try {
+            closed = true;
+            if (committer != null) {
+                changed.signal();
+                awaitCommitted(changeSeq);
+                return;
+            }
+            stopped = true;
+        } finally {
+            commitLock.unlock();
+        }
+        commitWithoutCommitter();
+    }
+
+    // Поток записи не запущен: оставшиеся изменения записывает вызывающий поток
+    private void commitWithoutCommitter() {
+        commitLock.lock();
+        try {
+            if (changeSeq == durableSeq) {
+                return;
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        if (!commit()) {
+            commitLock.lock();
+            try {
+                throw new ManagerSaveException("Изменения не записаны: " + lastFailure.getMessage(), lastFailure);
+            } finally {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    private void markChanged() {
+        commitLock.lock();
+        try {
+            changeSeq++;
+            changed.signal();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Вызывается под commitLock
+    private void awaitCommitted(long seq) {
+        while (durableSeq < seq) {
+            if (failedSeq >= seq) {
+                throw new ManagerSaveException("Изменения не записаны: " + lastFailure.getMessage(), lastFailure);
+            }
+            if (stopped) {
+                throw new IllegalStateException("Менеджер закрыт, изменения не записаны");
+            }
+            if (committer == null) {
+                throw new IllegalStateException("Поток записи не запущен, изменения не записаны");
+            }
+            committed.awaitUninterruptibly();
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            commitLock.lock();
+            try {
+                while (changeSeq == durableSeq && !closed) {
+                    changed.awaitUninterruptibly();
+                }
+                if (changeSeq == durableSeq) {
+                    stop();  // закрыт, всё записано
+                    return;
+                }
+                // окно: ждём изменения остальных клиентов, чтобы записать их одной пачкой
+                long remaining = commitWindowNanos;
+                while (remaining > 0 && !flushRequested && !closed) {
+                    remaining = changed.awaitNanos(remaining);
+                }
+                flushRequested = false;
+            } catch (InterruptedException e) {
+                // поток записи не прерывают: он останавливается через close
+            } finally {
+                commitLock.unlock();
+            }
+            if (!commit() && isClosed()) {
+                // при закрытии повторять неудачную запись бесконечно нельзя
+                commitLock.lock();
+                try {
+                    stop();
+                } finally {
+                    commitLock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    // Вызывается под commitLock
+    private void stop() {
+        stopped = true;
+        committed.signalAll();
+    }
+
+    private boolean isClosed() {
+        commitLock.lock();
+        try {
+            return closed;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private boolean commit() {
+        long target;
+        byte[] snapshot = null;
+        ManagerSaveException failure = null;
+        synchronized (this) {
+            commitLock.lock();
+            try {
+                target = changeSeq;
+            } finally {
+                commitLock.unlock();
+            }
+            try {
+                snapshot = encodeSnapshot();
+            } catch (ManagerSaveException e) {
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            try {
+                synchronized (fileLock) {
+                    writeEncodedSnapshot(snapshot);
+                }
+            } catch (ManagerSaveException e) {
+                failure = e;
+            }
+        }
+        commitLock.lock();
+        try {
+            if (failure == null) {
+                durableSeq = target;
+                commitCount++;
+                committed.signalAll();
+                return true;
+            }
+            failedSeq = target;
+            lastFailure = failure;
+            committed.signalAll();
+            // повтор - не раньше чем через окно, а не сразу
+            changed.awaitNanos(Math.max(commitWindowNanos, FAILED_COMMIT_RETRY_NANOS));
+        } catch (InterruptedException e) {
+            // см. commitLoop
+        } finally {
+            commitLock.unlock();
+        }
+        return false;
+    }
+}
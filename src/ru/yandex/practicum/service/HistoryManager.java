@@ -13,5 +13,8 @@ public interface HistoryManager {
     void clear();
 
     List<Task> getHistory();
+
+    // Растёт с каждым изменением истории: одинаковая версия - та же история (для ETag)
+    long getVersion();
 }
 
@@ -0,0 +1,212 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Task;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Отдельная история просмотров для каждого клиента (ключ - из заголовка или параметра запроса).
+ * <p>
+ * 1. История клиента создаётся при первом обращении и ограничена ёмкостью partitionCapacity,
+ * поэтому один клиент занимает не больше partitionCapacity узлов.
+ * 2. История клиента, к которой не обращались дольше idleTimeout, удаляется. Проверка идёт
+ * попутно с обращениями, не чаще раза в четверть idleTimeout, и выполняется одним потоком.
+ * 3. Удаление задачи из менеджера убирает её из историй всех клиентов. Для этого ведётся индекс
+ * id задачи -> истории, в которых она есть: удаление обходит только их, а не всех клиентов.
+ * Индекс обновляется при просмотре, вытеснении по ёмкости и удалении истории клиента.
+ * <p>
+ * Итого память под истории - не больше (число активных клиентов * partitionCapacity) узлов;
+ * текущее значение - {@link #retainedNodes()}.
+ */
+public class HistoryPartitions {
+    public static final int DEFAULT_PARTITION_CAPACITY = 100;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final int MAX_CLIENT_KEY_LENGTH = 64;
+
+    private final int partitionCapacity;
+    private final long idleTimeoutMillis;
+    private final LongSupplier clockMillis;
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    // id задачи -> истории клиентов, которые её просматривали; множества меняются только внутри compute
+    private final ConcurrentHashMap<Integer, Set<Partition>> viewers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+
+    private final class Partition implements HistoryManager {
+        final ConcurrentHistoryManager history;
+        volatile long lastAccess;
+        volatile boolean evicted;
+
+        Partition(int capacity, long now) {
+            this.history = new ConcurrentHistoryManager(capacity, id -> unindex(id, this));
+            this.lastAccess = now;
+        }
+
+        @Override
+        public void add(Task task) {
+            if (task == null) {
+                return;
+            }
+            history.add(task);
+            index(task.getId(), this);
+            // история вытеснена, пока шёл просмотр: индекс не должен её удерживать
+            if (evicted) {
+                unindex(task.getId(), this);
+            }
+        }
+
+        @Override
+        public void remove(int id) {
+            history.remove(id);
+            unindex(id, this);
+        }
+
+        @Override
+        public void clear() {
+            unindexAll();
+            history.clear();
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            return history.getHistory();
+        }
+
+        @Override
+        public long getVersion() {
+            return history.getVersion();
+        }
+
+        void unindexAll() {
+            for (Task task : history.getHistory()) {
+                unindex(task.getId(), this);
+            }
+        }
+    }
+
+    public HistoryPartitions() {
+        this(DEFAULT_PARTITION_CAPACITY, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public HistoryPartitions(int partitionCapacity, Duration idleTimeout) {
+        this(partitionCapacity, idleTimeout, System::currentTimeMillis);
+    }
+
+    // часы подменяются в тестах
+    HistoryPartitions(int partitionCapacity, Duration idleTimeout, LongSupplier clockMillis) {
+        if (partitionCapacity < 1) {
+            throw new IllegalArgumentException("Ёмкость истории клиента должна быть больше 0");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Время простоя должно быть больше 0");
+        }
+        this.partitionCapacity = partitionCapacity;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.clockMillis = clockMillis;
+        this.nextSweepAt = new AtomicLong(clockMillis.getAsLong() + sweepInterval());
+    }
+
+    public int getPartitionCapacity() {
+        return partitionCapacity;
+    }
+
+    /**
+     * История клиента с ключом clientKey; создаётся при первом обращении.
+     */
+    public HistoryManager forClient(String clientKey) {
+        Objects.requireNonNull(clientKey);
+        if (clientKey.isBlank() || clientKey.length() > MAX_CLIENT_KEY_LENGTH) {
+            throw new IllegalArgumentException("Ключ клиента должен быть непустым и не длиннее "
+                    + MAX_CLIENT_KEY_LENGTH + " символов");
+        }
+        long now = clockMillis.getAsLong();
+        sweepIfDue(now);
+        Partition partition = partitions.computeIfAbsent(clientKey, key -> new Partition(partitionCapacity, now));
+        partition.lastAccess = now;
+        return partition;
+    }
+
+    // Удаление задачи из менеджера: задача пропадает из историй клиентов, которые её просматривали
+    public void remove(int id) {
+        Set<Partition> holders = viewers.remove(id);
+        if (holders != null) {
+            holders.forEach(partition -> partition.history.remove(id));
+        }
+    }
+
+    public void clear() {
+        partitions.clear();
+        viewers.clear();
+    }
+
+    /**
+     * Удаляет истории клиентов, к которым не обращались дольше idleTimeout.
+     *
+     * @return число удалённых историй
+     */
+    public int evictIdle() {
+        long idleSince = clockMillis.getAsLong() - idleTimeoutMillis;
+        int evicted = 0;
+        for (var entry : partitions.entrySet()) {
+            Partition partition = entry.getValue();
+            // remove(key, value): история, созданная заново под тем же ключом, не удаляется
+            if (partition.lastAccess < idleSince && partitions.remove(entry.getKey(), partition)) {
+                partition.evicted = true;
+                partition.unindexAll();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    // Сколько задач сейчас хранят истории всех клиентов
+    public long retainedNodes() {
+        long nodes = 0;
+        for (Partition partition : partitions.values()) {
+            nodes += partition.history.size();
+        }
+        return nodes;
+    }
+
+    // Сколько задач есть в индексе просмотров
+    int indexedTasks() {
+        return viewers.size();
+    }
+
+    private void index(int id, Partition partition) {
+        viewers.compute(id, (key, holders) -> {
+            Set<Partition> result = holders == null ? new HashSet<>() : holders;
+            result.add(partition);
+            return result;
+        });
+    }
+
+    private void unindex(int id, Partition partition) {
+        viewers.computeIfPresent(id, (key, holders) -> {
+            holders.remove(partition);
+            return holders.isEmpty() ? null : holders;
+        });
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepAt.get();
+        // проверку запускает только тот поток, который первым сдвинул срок
+        if (now >= due && nextSweepAt.compareAndSet(due, now + sweepInterval())) {
+            evictIdle();
+        }
+    }
+
+    private long sweepInterval() {
+        return Math.max(1, idleTimeoutMillis / 4);
+    }
+}
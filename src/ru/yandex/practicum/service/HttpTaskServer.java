@@ -13,31 +13,71 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 
 public class HttpTaskServer {
     private static final int MIN_PORT = 1;
     private static final int MAX_PORT = 65535;
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Режим обработки запросов:
+     * VIRTUAL_THREADS - каждый запрос в своём виртуальном потоке (по умолчанию);
+     * PLATFORM_POOL - ограниченный пул обычных потоков.
+     * <p>
+     * В JDK 21 встроенный HttpServer читает заголовки запроса внутри synchronized,
+     * поэтому виртуальный поток на это время занимает поток-носитель. Если ожидаются
+     * клиенты, медленно присылающие заголовки, надёжнее PLATFORM_POOL.
+     */
+    public enum ExecutionMode {
+        VIRTUAL_THREADS,
+        PLATFORM_POOL
+    }
 
     private int port;
     private TaskManager manager;
+    // менеджер, который пишет изменения отдельным потоком; при остановке его нужно дописать.
+    // Обёртки (SynchronizedTaskManager) сами реализуют DeferredPersistence и передают flush дальше
+    private final DeferredPersistence persistence;
     private Gson gson;
     private HttpServer httpServer;
+    private final ExecutionMode executionMode;
+    private final int poolSize;
+    private ExecutorService executor;
 
     public HttpTaskServer(TaskManager manager, int port) {
+        this(manager, port, ExecutionMode.VIRTUAL_THREADS);
+    }
+
+    public HttpTaskServer(TaskManager manager, int port, ExecutionMode executionMode) {
+        this(manager, port, executionMode, DEFAULT_POOL_SIZE);
+    }
+
+    public HttpTaskServer(TaskManager manager, int port, ExecutionMode executionMode, int poolSize) {
         if (port < MIN_PORT || port > MAX_PORT) {
             throw new IllegalArgumentException("Порт должен быть в диапазоне от " + MIN_PORT + " до " + MAX_PORT);
         }
-        this.manager = manager;
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Размер пула потоков должен быть больше 0");
+        }
+        // запросы обрабатываются параллельно, поэтому менеджер должен быть потокобезопасным
+        this.manager = SynchronizedTaskManager.of(manager);
+        this.persistence = this.manager instanceof DeferredPersistence deferred ? deferred : null;
         this.port = port;
+        this.executionMode = executionMode;
+        this.poolSize = poolSize;
         this.gson = getGson();
     }
 
+    // компактный JSON: отступы добавляются только по запросу ?pretty=true (см. BaseHttpHandler.sendJson)
     public Gson getGson() {
         return new GsonBuilder()
                 .excludeFieldsWithoutExposeAnnotation()
-                .setPrettyPrinting()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
                 .create();
@@ -55,6 +95,9 @@ public class HttpTaskServer {
         httpServer.createContext("/epics", new EpicHandler("/epics", manager, gson));
         httpServer.createContext("/history", new HistoryHandler("/history", manager, gson));
         httpServer.createContext("/prioritized", new PrioritizedHandler("/prioritized", manager, gson));
+        httpServer.createContext("/events", new EventHandler("/events", manager, gson));
+        executor = createExecutor();
+        httpServer.setExecutor(executor);
         httpServer.start();
         System.out.println("HTTP-сервер запущен на порту " + port);
     }
@@ -63,13 +106,38 @@ public class HttpTaskServer {
     public void stop() {
         if (httpServer != null) {
             httpServer.stop(0);
+            executor.shutdown();
+            awaitRunningRequests();
+            if (persistence != null) {
+                // изменения уже подтверждены клиентам - дописываем их перед выходом
+                persistence.flush();
+            }
             System.out.println("HTTP-сервер остановлен");
         }
     }
 
+    private void awaitRunningRequests() {
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.out.println("Не все запросы завершились за " + SHUTDOWN_TIMEOUT.toSeconds() + " с");
+                // например, ожидание /events?wait=...: прерванное ожидание отвечает 503
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        return switch (executionMode) {
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case PLATFORM_POOL -> Executors.newFixedThreadPool(poolSize);
+        };
+    }
+
     public static void main(String[] args) {
         try {
-            TaskManager manager = Managers.getDefault();
+            TaskManager manager = Managers.getConcurrent();
             initializeTestData(manager);
 
             HttpTaskServer server = new HttpTaskServer(manager, 8080);
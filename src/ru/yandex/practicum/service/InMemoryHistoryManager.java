@@ -3,26 +3,75 @@ package ru.yandex.practicum.service;
 import ru.yandex.practicum.entity.Task;
 
 import java.util.*;
-
+import java.util.function.IntConsumer;
+
+/**
+ * История просмотров с ограниченной ёмкостью: при переполнении вытесняется задача,
+ * которую дольше всех не просматривали (LRU).
+ * <p>
+ * История хранит копии задач, снятые при просмотре: эпик в ней не меняется вместе с подзадачами.
+ * getHistory возвращает неизменяемый снимок. Он строится один раз после изменения истории
+ * и переиспользуется всеми следующими чтениями.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final IntConsumer onEvicted;  // id задачи, вытесненной по ёмкости
     private Node head;
     private Node tail;
     private Map<Integer, Node> tasksHistoryMap;
+    private List<Task> snapshot;  // null - история изменилась после последнего чтения
+    private long version;         // растёт вместе со сбросом snapshot
 
 
     public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, id -> {
+        });
+    }
+
+    InMemoryHistoryManager(int capacity, IntConsumer onEvicted) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть больше 0");
+        }
+        this.capacity = capacity;
+        this.onEvicted = onEvicted;
         tasksHistoryMap = new HashMap<>();
+    }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return tasksHistoryMap.size();
     }
 
     @Override
     public void add(Task task) {
+        if (task != null) {
+            record(task.copy());
+        }
+    }
+
+    // Добавляет уже снятую копию задачи
+    void record(Task task) {
         if (task != null) {
             int id = task.getId();
             if (tasksHistoryMap.containsKey(id)) {
                 remove(id);
             }
             linkLast(task);
+            if (tasksHistoryMap.size() > capacity) {
+                // вытесняем самую давнюю задачу
+                int evicted = head.task.getId();
+                remove(evicted);
+                onEvicted.accept(evicted);
+            }
         }
     }
 
@@ -33,6 +82,8 @@ public class InMemoryHistoryManager implements HistoryManager {
         int id = task.getId();
         Node newNode = new Node(tail, task, null);
         tasksHistoryMap.put(id, newNode);
+        snapshot = null;
+        version++;
 
         if (head == null) {
             head = newNode;
@@ -50,6 +101,8 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         Node oldNode = tasksHistoryMap.remove(id);
         removeNode(oldNode);
+        snapshot = null;
+        version++;
     }
 
     private void removeNode(Node node) {
@@ -97,6 +150,13 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         head = tail = null;
         tasksHistoryMap.clear();
+        snapshot = null;
+        version++;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
     }
 
     @Override
@@ -105,13 +165,15 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (tasksHistoryMap.isEmpty()) {
             return Collections.emptyList();
         }
-
-        List<Task> result = new ArrayList<>(tasksHistoryMap.size());
-        for (Node current = head; current != null; current = current.next) {
-            result.add(current.task.copy());
+        if (snapshot == null) {
+            Task[] result = new Task[tasksHistoryMap.size()];
+            int i = 0;
+            for (Node current = head; current != null; current = current.next) {
+                result[i++] = current.task;
+            }
+            snapshot = List.of(result);
         }
-
-        return Collections.unmodifiableList(result);
+        return snapshot;
     }
 
     private static class Node {
@@ -3,23 +3,45 @@ package ru.yandex.practicum.service;
 import ru.yandex.practicum.entity.*;
 import ru.yandex.practicum.exceptions.TimeConflictException;
 import ru.yandex.practicum.manager.Managers;
+import ru.yandex.practicum.service.id.AtomicIdAllocator;
+import ru.yandex.practicum.service.id.IdAllocator;
+import ru.yandex.practicum.service.schedule.TimeIntervalIndex;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class InMemoryTaskManager implements TaskManager {
 
     protected Map<Integer, Task> tasks;
+    // те же задачи, разложенные по типам и упорядоченные по id: списки и страницы по типу без обхода всех задач
+    protected Map<TaskType, NavigableMap<Integer, Task>> tasksByType;
     protected HistoryManager historyManager;
-    protected Set<Task> prioritizedTasks;
+    // истории клиентов создаются при первом обращении к ним: менеджеру без HTTP они не нужны
+    private final AtomicReference<HistoryPartitions> historyPartitions = new AtomicReference<>();
+    protected TimeIntervalIndex prioritizedTasks;
+    protected final IdAllocator idAllocator;
+    protected final TaskEventLog eventLog;
+    // версии списков по типам (индекс - ordinal) и расписания (последний элемент), см. touch
+    private final AtomicLongArray versions = new AtomicLongArray(TaskType.values().length + 1);
 
 
     public InMemoryTaskManager() {
+        this(new AtomicIdAllocator());
+    }
+
+    public InMemoryTaskManager(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
         this.tasks = new HashMap<>();
-        this.prioritizedTasks = new TreeSet<>();
+        this.tasksByType = new EnumMap<>(TaskType.class);
+        for (TaskType taskType : TaskType.values()) {
+            tasksByType.put(taskType, new TreeMap<>());
+        }
+        this.prioritizedTasks = new TimeIntervalIndex();
         this.historyManager = Managers.getDefaultHistory();
+        this.eventLog = new TaskEventLog();
     }
 
     @Override
@@ -27,6 +49,51 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager;
     }
 
+    @Override
+    public HistoryPartitions getHistoryPartitions() {
+        HistoryPartitions current = historyPartitions.get();
+        if (current == null) {
+            HistoryPartitions created = new HistoryPartitions();
+            current = historyPartitions.compareAndExchange(null, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        return eventLog;
+    }
+
+    @Override
+    public long getVersion(TaskType taskType) {
+        return versions.get(taskType.ordinal());
+    }
+
+    @Override
+    public long getPrioritizedVersion() {
+        return versions.get(versions.length() - 1);
+    }
+
+    /**
+     * Отмечает изменение задачи типа taskType (null - всей доски). Вызывается после изменения:
+     * версия, прочитанная до списка, не бывает новее самого списка.
+     * Подзадача в JSON несёт свой эпик, а статус эпика считается по подзадачам, поэтому изменение
+     * любой из них меняет оба списка. Расписание меняется с любой задачей.
+     */
+    protected void touch(TaskType taskType) {
+        if (taskType == null || taskType == TaskType.TASK) {
+            versions.incrementAndGet(TaskType.TASK.ordinal());
+        }
+        if (taskType != TaskType.TASK) {
+            versions.incrementAndGet(TaskType.EPIC.ordinal());
+            versions.incrementAndGet(TaskType.SUBTASK.ordinal());
+        }
+        versions.incrementAndGet(versions.length() - 1);
+    }
+
     @Override
     public void addTask(Task task) {
 
@@ -37,11 +104,79 @@ public class InMemoryTaskManager implements TaskManager {
             throw new TimeConflictException("Задача " + task.getId() +
                     " пересекается по времени с существующей задачей.");
         }
+        insert(task);
+    }
+
+    /**
+     * Добавляет пачку задач целиком или не добавляет ни одной.
+     * <p>
+     * Сначала пачка проверяется, ничего не меняя: повторы id и пересечения по времени - одной
+     * сортировкой пачки и одним проходом по ней (см. TimeIntervalIndex.findOverlap).
+     * Затем задачи вставляются так же, как в addTask; на этом шаге исключений уже нет.
+     */
+    @Override
+    public void addTasks(Collection<Task> batch) {
+        Set<Integer> ids = new HashSet<>();
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : batch) {
+            if (task.hasId() && !ids.add(task.getId())) {
+                throw new IllegalArgumentException("Задача " + task.getId() + " встречается в пачке дважды");
+            }
+            if (TimeIntervalIndex.isScheduled(task)) {
+                scheduled.add(task);
+            }
+        }
+        Collections.sort(scheduled);
+        Task conflict = prioritizedTasks.findOverlap(scheduled);
+        if (conflict != null) {
+            throw new TimeConflictException("Задача " + (conflict.hasId() ? conflict.getId() : conflict.getName()) +
+                    " пересекается по времени с другой задачей.");
+        }
+        for (Task task : batch) {
+            insert(task);
+        }
+    }
+
+    // Вставка проверенной задачи: выдача id, карты задач и расписание
+    private void insert(Task task) {
+        if (!task.hasId()) {
+            task.assignId(idAllocator.nextId());
+        } else if (!tasks.containsKey(task.getId())) {
+            // новая задача с заданным id (например, из файла): этот id больше не выдаём
+            idAllocator.observe(task.getId());
+        }
         //запомним старую задачу, если была
         Task oldTask = tasks.get(task.getId());
 
-        tasks.put(task.getId(), task);
+        putTask(task);
         addPrioritizedTasks(task, oldTask);
+        eventLog.publish(oldTask == null ? TaskEventType.CREATED : TaskEventType.UPDATED, task.getTaskType(), task);
+        touch(task.getTaskType());
+    }
+
+    protected void putTask(Task task) {
+        Task oldTask = tasks.put(task.getId(), task);
+        if (oldTask != null && oldTask.getTaskType() != task.getTaskType()) {
+            tasksByType.get(oldTask.getTaskType()).remove(oldTask.getId());
+        }
+        tasksByType.get(task.getTaskType()).put(task.getId(), task);
+    }
+
+    protected void removeTask(int id, boolean publishEvents) {
+        Task removed = tasks.remove(id);
+        if (removed != null) {
+            tasksByType.get(removed.getTaskType()).remove(id);
+            if (publishEvents) {
+                eventLog.publish(TaskEventType.DELETED, removed.getTaskType(), removed);
+            }
+        }
+    }
+
+    private void removeFromPartitions(int id) {
+        HistoryPartitions partitions = historyPartitions.get();
+        if (partitions != null) {
+            partitions.remove(id);
+        }
     }
 
     public void addPrioritizedTasks(Task newTask, Task oldTask) {
@@ -100,30 +235,67 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Map<Integer, Task> getAllTasksByType(TaskType taskType) {
+        // представление только для чтения, без копирования
+        return Collections.unmodifiableMap(tasksByType.get(taskType));
+    }
 
-        if (tasks.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        return prioritizedTasks.asSet();
+    }
 
-        return tasks.entrySet().stream()
-                .filter(entry -> entry.getValue().getClass() == taskType.getTaskClass())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue
-                ));
+    @Override
+    public List<Task> getTasksPage(TaskType taskType, int afterId, int limit) {
+        // tailMap - O(log n), дальше берём только limit задач
+        return firstN(tasksByType.get(taskType).tailMap(afterId, false).values(), limit);
     }
 
     @Override
-    public Set<Task> getPrioritizedTasks() {
-        return prioritizedTasks;
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return firstN(prioritizedTasks.startingBetween(from, to), limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration, int limit) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Нужен непустой промежуток: from раньше to");
+        }
+        if (minDuration == null || minDuration.isNegative()) {
+            throw new IllegalArgumentException("Длительность промежутка не может быть отрицательной");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше 0");
+        }
+        return prioritizedTasks.findFreeSlots(from, to, minDuration, limit);
+    }
+
+    protected static List<Task> firstN(Iterable<Task> source, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше 0");
+        }
+        List<Task> page = new ArrayList<>(Math.min(limit, 256));
+        for (Task task : source) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
     }
 
     @Override
     public void clearAllTasks() {
         int tasksSizeBefore = tasks.size();
         historyManager.clear();
+        HistoryPartitions partitions = historyPartitions.get();
+        if (partitions != null) {
+            partitions.clear();
+        }
         tasks.clear();
+        tasksByType.values().forEach(Map::clear);
         prioritizedTasks.clear();
+        eventLog.publish(TaskEventType.CLEARED, null, null);
+        touch(null);
         System.out.println("Удалено задач " + tasksSizeBefore + " шт.");
     }
 
@@ -131,16 +303,25 @@ public class InMemoryTaskManager implements TaskManager {
     public void clearTasksByType(TaskType taskType) {
         int tasksSizeBefore = tasks.size();
 
-        List<Task> toDelete = tasks.values().stream()
-                .filter(task -> task.getClass() == taskType.getTaskClass())
-                .toList();
+        List<Task> toDelete = new ArrayList<>(tasksByType.get(taskType).values());
 
-        toDelete.forEach(this::deleteTask);
+        // одно событие CLEARED вместо удаления каждой задачи: очистка больше ёмкости журнала
+        // не вытесняет из него курсоры всех ждущих клиентов
+        toDelete.forEach(task -> deleteTask(task, false));
+        eventLog.publish(TaskEventType.CLEARED, taskType, null);
 
         System.out.println("Удалено задач " + (tasksSizeBefore - tasks.size()) + " шт.");
     }
 
 
+    /**
+     * Включает карту занятости расписания с корзинами длины bucket, например 15 минут для доски
+     * с шагом в четверть часа (см. TimeIntervalIndex.enableOccupancyGrid). Не для ConcurrentTaskManager.
+     */
+    public void enableOccupancyGrid(Duration bucket) {
+        prioritizedTasks.enableOccupancyGrid(bucket);
+    }
+
     @Override
     public Task createTask(TaskType taskType, String name,
                            String description, Epic parentEpic,
@@ -156,6 +337,23 @@ public class InMemoryTaskManager implements TaskManager {
         return task;
     }
 
+    @Override
+    public Task placeTask(TaskType taskType, String name, String description, Epic parentEpic, Duration duration,
+                          LocalDateTime from, LocalDateTime to) {
+        if (taskType == TaskType.EPIC) {
+            throw new IllegalArgumentException("Время эпика складывается из подзадач, его нельзя разместить");
+        }
+        if (duration == null || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("Для размещения нужна положительная длительность");
+        }
+        List<TimeSlot> slots = findFreeSlots(from, to, duration, 1);
+        if (slots.isEmpty()) {
+            throw new TimeConflictException("Нет свободного промежутка длиной " + duration.toMinutes() +
+                    " мин. между " + from + " и " + to);
+        }
+        return createTask(taskType, name, description, parentEpic, slots.getFirst().getStart(), duration);
+    }
+
     @Override
     public Task updateTask(TaskType taskType, int id, String name,
                            String description, Status status,
@@ -163,8 +361,7 @@ public class InMemoryTaskManager implements TaskManager {
 
         Task newTask = switch (taskType) {
             case TASK -> new Task(id, name, description, status, startTime, duration);
-            case EPIC -> new Epic(id, name, description,
-                    ((Epic) tasks.get(id)).getSubtasks());
+            case EPIC -> new Epic(id, name, description, (Epic) tasks.get(id));
             case SUBTASK -> new Subtask(id, name, description, status,
                     ((Subtask) tasks.get(id)).getParentEpic(), startTime, duration);
         };
@@ -175,6 +372,11 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public boolean deleteTask(Task task) {
+        return deleteTask(task, true);
+    }
+
+    // publishEvents = false - удаление внутри очистки типа, которая публикует одно событие CLEARED
+    protected boolean deleteTask(Task task, boolean publishEvents) {
         if (task == null) {
             return false;
         }
@@ -186,17 +388,19 @@ public class InMemoryTaskManager implements TaskManager {
             // Если это эпик, сначала удаляем все его подзадачи
             for (Task subtask : epic.getSubtasks().values()) {
                 historyManager.remove(subtask.getId());
-                tasks.remove(subtask.getId());
+                removeFromPartitions(subtask.getId());
+                removeTask(subtask.getId(), publishEvents);
                 if (subtask.getStartTime() != null) {
                     prioritizedTasks.remove(subtask);
                 }
             }
-            epic.getSubtasks().clear();
+            epic.clearSubtasks();
         }
 
         // Удаляем саму задачу
         historyManager.remove(task.getId());
-        tasks.remove(task.getId());
+        removeFromPartitions(task.getId());
+        removeTask(task.getId(), publishEvents);
 
         // Удаляем из prioritizedTasks только если задача там была
         if (!(task instanceof Epic) &&
@@ -206,21 +410,24 @@ public class InMemoryTaskManager implements TaskManager {
 
             prioritizedTasks.remove(task);
         }
+        touch(task.getTaskType());
         return true;
     }
 
     @Override
     public Optional<Map<Integer, Task>> getSubtasksByEpic(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
+        // getSubtasks отдаёт копию: подзадачи эпика меняются только через сам эпик
+        Map<Integer, Task> subtasks = epic.getSubtasks();
+        if (subtasks.isEmpty()) {
             System.out.println("Для задачи " + epic.getId() + " список пуст.");
             return Optional.empty();
         }
-        return Optional.of(epic.getSubtasks());
+        return Optional.of(subtasks);
     }
 
     @Override
     public void clearCounterForId() {
-        Task.counter = 0;
+        idAllocator.reset();
     }
 
     protected boolean isTimeOverlap(Task task1, Task task2) {
@@ -231,12 +438,7 @@ public class InMemoryTaskManager implements TaskManager {
             return false; // задачи без времени не могут пересекаться
         }
 
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = start1.plus(task1.getDuration());
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = start2.plus(task2.getDuration());
-
-        return start1.isBefore(end2) && start2.isBefore(end1);
+        return task1.overlapsInTime(task2);
     }
 
     protected boolean hasTimeOverlapWithAnyTask(Task task) {
@@ -244,9 +446,8 @@ public class InMemoryTaskManager implements TaskManager {
             return false; // задачи без времени не могут пересекаться
         }
 
-        return prioritizedTasks.stream()
-                .filter(t -> !t.equals(task)) // исключаем саму задачу
-                .anyMatch(t -> isTimeOverlap(task, t));
+        // индекс сам исключает прежнюю версию задачи и смотрит только соседей по времени
+        return prioritizedTasks.hasOverlap(task);
     }
 }
 
@@ -0,0 +1,386 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.exceptions.ManagerSaveException;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Менеджер, дописывающий каждое изменение в журнал и периодически сворачивающий журнал в снимок.
+ */
+public class JournaledTaskManager extends FileBackedTaskManager implements AutoCloseable {
+    // записи журнала: "seq,+,<строка CSV>" - добавление или обновление, "seq,-,id" - удаление,
+    // "seq,!" - удаление всех задач, "seq,[,n" + n строк CSV + "seq,]" - пачка, применяемая целиком
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SEQ_PREFIX = "journalSeq=";
+    private static final int DEFAULT_COMPACT_THRESHOLD = 10_000;
+    private static final Duration DEFAULT_COMPACT_INTERVAL = Duration.ofMinutes(1);
+
+    private final Path journalPath;
+    private final int compactThreshold;
+    private final Duration compactInterval;
+    private ScheduledExecutorService compactor;  // null - фоновая свёртка не запущена
+
+    private FileChannel journalChannel;
+    private BufferedWriter journalWriter;
+    private long lastSeq;        // номер последней записи в журнале
+    private long snapshotSeq;    // номер последней записи, свёрнутой в снимок
+    private boolean replaying;   // во время загрузки изменения в журнал не пишутся
+
+    public JournaledTaskManager(Path path) {
+        this(path, DEFAULT_COMPACT_THRESHOLD, DEFAULT_COMPACT_INTERVAL);
+    }
+
+    public JournaledTaskManager(Path path, int compactThreshold, Duration compactInterval) {
+        this(path, compactThreshold, compactInterval, SnapshotFormat.CSV);
+    }
+
+    // format - формат снимка; журнал всегда текстовый
+    public JournaledTaskManager(Path path, int compactThreshold, Duration compactInterval, SnapshotFormat format) {
+        this(path, compactThreshold, compactInterval, format, FsyncPolicy.NEVER);
+    }
+
+    // fsyncPolicy действует и на снимок, и на записи журнала
+    public JournaledTaskManager(Path path, int compactThreshold, Duration compactInterval, SnapshotFormat format,
+                                FsyncPolicy fsyncPolicy) {
+        super(path, format, fsyncPolicy);
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException("Порог свёртки журнала должен быть больше 0");
+        }
+        this.journalPath = Path.of(path + JOURNAL_SUFFIX);
+        this.compactThreshold = compactThreshold;
+        this.compactInterval = compactInterval;
+    }
+
+    public static JournaledTaskManager loadFromFile(File file) {
+        return loadFromFile(file, FsyncPolicy.NEVER);
+    }
+
+    public static JournaledTaskManager loadFromFile(File file, FsyncPolicy fsyncPolicy) {
+        JournaledTaskManager manager = new JournaledTaskManager(file.toPath(), DEFAULT_COMPACT_THRESHOLD,
+                DEFAULT_COMPACT_INTERVAL, detectFormat(file.toPath()), fsyncPolicy);
+        manager.load();
+        manager.start();
+        return manager;
+    }
+
+    /**
+     * Запускает фоновую свёртку журнала раз в compactInterval. Без неё журнал сворачивают
+     * только явные вызовы compact и close.
+     */
+    public synchronized void start() {
+        if (compactor != null) {
+            throw new IllegalStateException("Фоновая свёртка уже запущена");
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = compactInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    @Override
+    public synchronized void addTask(Task task) {
+        super.addTask(task);
+    }
+
+    @Override
+    public synchronized void addTasks(Collection<Task> batch) {
+        super.addTasks(batch);
+    }
+
+    @Override
+    public synchronized Task placeTask(TaskType taskType, String name, String description, Epic parentEpic,
+                                       Duration duration, LocalDateTime from, LocalDateTime to) {
+        return super.placeTask(taskType, name, description, parentEpic, duration, from, to);
+    }
+
+    @Override
+    public synchronized boolean deleteTask(Task task) {
+        return super.deleteTask(task);
+    }
+
+    @Override
+    public synchronized void clearAllTasks() {
+        super.clearAllTasks();
+    }
+
+    @Override
+    public synchronized void clearTasksByType(TaskType taskType) {
+        super.clearTasksByType(taskType);
+    }
+
+    @Override
+    protected void onTaskAdded(Task task) {
+        append("+," + task.writeToString());
+    }
+
+    // вся пачка - одна запись журнала с одним сбросом: после сбоя она применяется целиком или никак
+    @Override
+    protected void onTasksAdded(Collection<Task> batch) {
+        if (replaying || batch.isEmpty()) {
+            return;
+        }
+        long seq = lastSeq + 1;
+        StringBuilder record = new StringBuilder();
+        record.append(seq).append(",[,").append(batch.size()).append(System.lineSeparator());
+        for (Task task : batch) {
+            record.append(task.writeToString()).append(System.lineSeparator());
+        }
+        record.append(seq).append(",]").append(System.lineSeparator());
+        write(record.toString());
+    }
+
+    @Override
+    protected void onTaskDeleted(Task task) {
+        append("-," + task.getId());
+    }
+
+    @Override
+    protected void onTasksCleared() {
+        append("!");
+    }
+
+    @Override
+    protected String snapshotHeader() {
+        return super.snapshotHeader() + "," + SEQ_PREFIX + snapshotSeq;
+    }
+
+    /**
+     * Сворачивает журнал в новый снимок и очищает журнал.
+     */
+    public synchronized void compact() {
+        long previousSeq = snapshotSeq;
+        snapshotSeq = lastSeq;  // попадает в заголовок снимка
+        try {
+            save();
+        } catch (RuntimeException e) {
+            // снимок не записан: журнал ещё не свёрнут, compactIfNeeded повторит попытку
+            snapshotSeq = previousSeq;
+            throw e;
+        }
+        closeJournal();
+        try {
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось очистить журнал " + journalPath);
+        }
+    }
+
+    /**
+     * Останавливает фоновую свёртку, сворачивает журнал и закрывает файлы.
+     */
+    @Override
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        compact();
+    }
+
+    private synchronized void compactIfNeeded() {
+        try {
+            if (lastSeq - snapshotSeq >= compactThreshold) {
+                compact();
+            }
+        } catch (ManagerSaveException e) {
+            // журнал остаётся целым, попробуем свернуть его при следующем запуске
+            System.out.println("Не удалось свернуть журнал: " + e.getMessage());
+        }
+    }
+
+    private void append(String record) {
+        if (replaying) {
+            return;
+        }
+        write((lastSeq + 1) + "," + record + System.lineSeparator());
+    }
+
+    // дописывает одну запись журнала (возможно, из нескольких строк) и сбрасывает её на диск по fsyncPolicy
+    private void write(String record) {
+        try {
+            if (journalWriter == null) {
+                journalChannel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                journalWriter = new BufferedWriter(Channels.newWriter(journalChannel, StandardCharsets.UTF_8));
+            }
+            journalWriter.write(record);
+            journalWriter.flush();
+            long now = System.currentTimeMillis();
+            if (isSyncDue(now)) {
+                journalChannel.force(false);
+                markSynced(now);
+            } else {
+                scheduleSync(now);
+            }
+            lastSeq++;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать в журнал " + journalPath, e);
+        }
+    }
+
+    @Override
+    protected synchronized void syncPending() throws IOException {
+        super.syncPending();
+        if (journalChannel != null) {
+            journalChannel.force(false);
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть журнал " + journalPath);
+        } finally {
+            journalWriter = null;
+            journalChannel = null;
+        }
+    }
+
+    @Override
+    protected synchronized void load() {
+        replaying = true;
+        try {
+            if (Files.exists(path)) {
+                snapshotSeq = readSnapshotSeq();
+                super.load();
+            }
+            lastSeq = snapshotSeq;
+            if (Files.exists(journalPath)) {
+                replayJournal();
+            }
+            eventLog.truncate();
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private long readSnapshotSeq() {
+        try {
+            return readHeaderValue(readSnapshotHeader(), SEQ_PREFIX);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Не удалось прочитать заголовок снимка " + path, e);
+        }
+    }
+
+    private void replayJournal() {
+        try (BufferedReader br = Files.newBufferedReader(journalPath)) {
+            String line = br.readLine();
+            while (line != null) {
+                if (isBatchStart(line)) {
+                    if (!replayBatch(line, br)) {
+                        // пачка была недописана при сбое - не применяем из неё ничего
+                        System.out.println("Пропущена недописанная пачка журнала: " + line);
+                        break;
+                    }
+                    line = br.readLine();
+                    continue;
+                }
+                String next = br.readLine();
+                if (!line.isBlank()) {
+                    try {
+                        applyRecord(line);
+                    } catch (RuntimeException e) {
+                        if (next != null) {
+                            throw new RuntimeException("Журнал повреждён, запись: " + line, e);
+                        }
+                        // последняя запись могла быть недописана при сбое - пропускаем её
+                        System.out.println("Пропущена недописанная запись журнала: " + line);
+                    }
+                }
+                line = next;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать журнал " + journalPath, e);
+        }
+    }
+
+    private static boolean isBatchStart(String line) {
+        int comma = line.indexOf(',');
+        return comma > 0 && line.startsWith("[,", comma + 1);
+    }
+
+    // Читает пачку целиком и применяет её; false - журнал оборвался внутри пачки
+    private boolean replayBatch(String header, BufferedReader br) throws IOException {
+        String[] parts = header.split(",", 3);
+        long seq;
+        int size;
+        try {
+            seq = Long.parseLong(parts[0]);
+            size = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Журнал повреждён, запись: " + header, e);
+        }
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String line = br.readLine();
+            if (line == null) {
+                return false;
+            }
+            lines.add(line);
+        }
+        String end = br.readLine();
+        if (!(seq + ",]").equals(end)) {
+            if (end == null || br.readLine() == null) {
+                return false; // окончание не дописано или дописано не полностью
+            }
+            throw new RuntimeException("Журнал повреждён, нет окончания пачки: " + header);
+        }
+        if (seq > snapshotSeq) {
+            lines.forEach(this::createTaskFromCsvLine);
+            lastSeq = seq;
+        }
+        return true;
+    }
+
+    private void applyRecord(String record) {
+        String[] parts = record.split(",", 3);
+        long seq = Long.parseLong(parts[0]);
+        if (seq <= snapshotSeq) {
+            return; // запись уже свёрнута в снимок
+        }
+        switch (parts[1]) {
+            case "+" -> createTaskFromCsvLine(parts[2]);
+            case "-" -> {
+                Task task = tasks.get(Integer.parseInt(parts[2]));
+                if (task != null) {
+                    deleteTask(task);
+                }
+            }
+            case "!" -> clearAllTasks();
+            default -> throw new IllegalArgumentException("Неизвестный тип записи журнала: " + parts[1]);
+        }
+        lastSeq = seq;
+    }
+}
@@ -0,0 +1,342 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.*;
+import ru.yandex.practicum.exceptions.TimeConflictException;
+import ru.yandex.practicum.exceptions.WrongParentEpicException;
+import ru.yandex.practicum.service.snapshot.MappedSnapshot;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Менеджер, который не загружает снимок при запуске, а отображает двоичный снимок в память
+ * (см. MappedSnapshot) и создаёт задачи только при обращении к ним.
+ * <p>
+ * 1. При открытии в куче появляется только индекс снимка, поэтому запуск занимает миллисекунды
+ * и почти не зависит от размера файла.
+ * 2. getTaskById, getAllTasks, списки и страницы по типу, подзадачи эпика и история создают задачи
+ * по мере обращения. Созданная задача запоминается: повторное обращение возвращает тот же объект.
+ * Эпик создаётся вместе со всеми своими подзадачами - по ним считаются его статус и время.
+ * 3. Расписание (getPrioritizedTasks) и любое изменение доски требуют всех задач: при первом таком
+ * вызове снимок загружается целиком (с проверкой пересечений, как при обычной загрузке), и дальше
+ * менеджер работает как FileBackedTaskManager с двоичным снимком.
+ * <p>
+ * Открывается только двоичный снимок с индексом; CSV переводится в него через SnapshotConverter.
+ * Менеджер однопоточный, для HTTP-сервера он оборачивается в SynchronizedTaskManager.
+ */
+public class MappedTaskManager extends FileBackedTaskManager {
+    // null - снимок загружен целиком, задачи в обычных картах менеджера
+    private MappedSnapshot snapshot;
+    // задачи, уже созданные из снимка
+    private final Map<Integer, Task> materialized = new HashMap<>();
+
+    private MappedTaskManager(Path path, MappedSnapshot snapshot) {
+        super(path, SnapshotFormat.BINARY);
+        this.snapshot = snapshot;
+        this.tasks = new SnapshotView(null);
+        idAllocator.observe((int) readHeaderValue(snapshot.getHeader(), LAST_ID_PREFIX));
+        if (snapshot.size() > 0) {
+            idAllocator.observe(snapshot.idAt(snapshot.size() - 1));
+        }
+    }
+
+    public static MappedTaskManager open(Path path) {
+        try {
+            return new MappedTaskManager(path, MappedSnapshot.open(path));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Неверный заголовок файла " + path, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать файл " + path, e);
+        }
+    }
+
+    // false - задачи ещё читаются из снимка по мере обращения
+    public boolean isFullyLoaded() {
+        return snapshot == null;
+    }
+
+    // Сколько задач создано из снимка (после полной загрузки - все)
+    public int materializedCount() {
+        return snapshot == null ? tasks.size() : materialized.size();
+    }
+
+    @Override
+    public Map<Integer, Task> getAllTasksByType(TaskType taskType) {
+        if (snapshot == null) {
+            return super.getAllTasksByType(taskType);
+        }
+        return new SnapshotView(taskType);
+    }
+
+    @Override
+    public List<Task> getTasksPage(TaskType taskType, int afterId, int limit) {
+        if (snapshot == null) {
+            return super.getTasksPage(taskType, afterId, limit);
+        }
+        int from = snapshot.positionAfter(afterId);
+        return firstN(() -> new SnapshotIterator(taskType, from), limit);
+    }
+
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        loadAll();
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        loadAll();
+        return super.getPrioritizedTasks(from, to, limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration, int limit) {
+        loadAll();
+        return super.findFreeSlots(from, to, minDuration, limit);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        loadAll();
+        super.addTask(task);
+    }
+
+    @Override
+    public void addTasks(Collection<Task> batch) {
+        loadAll();
+        super.addTasks(batch);
+    }
+
+    @Override
+    public Task updateTask(TaskType taskType, int id, String name, String description, Status status,
+                           LocalDateTime startTime, Duration duration) {
+        loadAll();
+        return super.updateTask(taskType, id, name, description, status, startTime, duration);
+    }
+
+    @Override
+    public boolean deleteTask(Task task) {
+        loadAll();
+        return super.deleteTask(task);
+    }
+
+    @Override
+    public void clearTasksByType(TaskType taskType) {
+        loadAll();
+        super.clearTasksByType(taskType);
+    }
+
+    @Override
+    public void clearAllTasks() {
+        if (snapshot != null) {
+            // удаляются все задачи - загружать их незачем
+            snapshot = null;
+            materialized.clear();
+            tasks = new HashMap<>();
+        }
+        super.clearAllTasks();
+    }
+
+    // Пока снимок отображён в память, его файл переписывать нельзя: сначала загружаем всё
+    @Override
+    public void exportTo(Path target, SnapshotFormat targetFormat) {
+        loadAll();
+        super.exportTo(target, targetFormat);
+    }
+
+    /**
+     * Загружает снимок целиком; после этого файл снимка больше не читается.
+     */
+    public void loadAll() {
+        if (snapshot == null) {
+            return;
+        }
+        Map<Integer, Task> loaded = new HashMap<>();
+        for (int position = 0; position < snapshot.size(); position++) {
+            Task task = materialize(position);
+            loaded.put(task.getId(), task);
+        }
+        snapshot = null;
+        materialized.clear();
+        tasks = new HashMap<>();
+        try {
+            for (Task task : loaded.values()) {
+                if (hasTimeOverlapWithAnyTask(task)) {
+                    throw new TimeConflictException("Задача " + task.getId() +
+                            " пересекается по времени с существующей задачей.");
+                }
+                putTask(task);
+                addPrioritizedTasks(task, null);
+            }
+        } catch (TimeConflictException e) {
+            throw new RuntimeException("Загрузка остановлена, обнаружены некорректные данные. " + e.getMessage());
+        }
+    }
+
+    private Task materialize(int position) {
+        int id = snapshot.idAt(position);
+        Task task = materialized.get(id);
+        if (task == null) {
+            readRecord(position);
+            task = materialized.get(id);
+        }
+        return task;
+    }
+
+    private void readRecord(int position) {
+        try {
+            snapshot.read(position, this::createFromRecord);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать задачу из файла " + path, e);
+        }
+    }
+
+    private void createFromRecord(int id, TaskType type, String name, String description, Status status,
+                                  int parentEpicId, LocalDateTime startTime, Duration duration) {
+        switch (type) {
+            case TASK -> materialized.put(id, new Task(id, name, description, status, startTime, duration));
+            case EPIC -> {
+                materialized.put(id, new Epic(id, name, description));
+                int position = snapshot.position(id);
+                for (int i = 0; i < snapshot.subtaskCount(position); i++) {
+                    readRecord(snapshot.subtaskAt(position, i));
+                }
+            }
+            case SUBTASK -> {
+                Task parentEpic = materialized.get(parentEpicId);
+                if (parentEpic != null) {
+                    materialized.put(id, new Subtask(id, name, description, status, parentEpic, startTime, duration));
+                    return;
+                }
+                // эпик создаётся вместе со всеми подзадачами, в том числе этой
+                int parentPosition = snapshot.position(parentEpicId);
+                if (parentPosition < 0 || snapshot.typeAt(parentPosition) != TaskType.EPIC) {
+                    throw new WrongParentEpicException("Родительской задачи " + parentEpicId + " не существует.");
+                }
+                readRecord(parentPosition);
+            }
+        }
+    }
+
+    // Задачи снимка по возрастанию id, начиная с номера from; type = null - все типы
+    private final class SnapshotIterator implements Iterator<Task> {
+        private final MappedSnapshot source = snapshot;
+        private final TaskType type;
+        private int position;
+
+        SnapshotIterator(TaskType type, int from) {
+            this.type = type;
+            this.position = from;
+            skipOtherTypes();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < source.size();
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (snapshot != source) {
+                // снимок загружен целиком и файл мог быть переписан
+                throw new ConcurrentModificationException();
+            }
+            Task task = materialize(position++);
+            skipOtherTypes();
+            return task;
+        }
+
+        private void skipOtherTypes() {
+            while (type != null && position < source.size() && source.typeAt(position) != type) {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Задачи снимка (все или одного типа) как карта только для чтения: задачи создаются
+     * при обращении. После полной загрузки карта показывает текущие задачи менеджера.
+     */
+    private final class SnapshotView extends AbstractMap<Integer, Task> {
+        private final TaskType type;
+
+        SnapshotView(TaskType type) {
+            this.type = type;
+        }
+
+        private Map<Integer, Task> loaded() {
+            return Collections.unmodifiableMap(type == null ? tasks : tasksByType.get(type));
+        }
+
+        private int positionOf(Object key) {
+            if (!(key instanceof Integer id)) {
+                return -1;
+            }
+            int position = snapshot.position(id);
+            return position >= 0 && (type == null || snapshot.typeAt(position) == type) ? position : -1;
+        }
+
+        @Override
+        public int size() {
+            if (snapshot == null) {
+                return loaded().size();
+            }
+            return type == null ? snapshot.size() : snapshot.count(type);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (snapshot == null) {
+                return loaded().containsKey(key);
+            }
+            return positionOf(key) >= 0;
+        }
+
+        @Override
+        public Task get(Object key) {
+            if (snapshot == null) {
+                return loaded().get(key);
+            }
+            int position = positionOf(key);
+            return position >= 0 ? materialize(position) : null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Task>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, Task>> iterator() {
+                    if (snapshot == null) {
+                        return loaded().entrySet().iterator();
+                    }
+                    Iterator<Task> snapshotTasks = new SnapshotIterator(type, 0);
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return snapshotTasks.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, Task> next() {
+                            Task task = snapshotTasks.next();
+                            return new SimpleImmutableEntry<>(task.getId(), task);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return SnapshotView.this.size();
+                }
+            };
+        }
+    }
+}
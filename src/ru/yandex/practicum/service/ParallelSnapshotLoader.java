@@ -0,0 +1,226 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.*;
+import ru.yandex.practicum.exceptions.TimeConflictException;
+import ru.yandex.practicum.exceptions.WrongParentEpicException;
+import ru.yandex.practicum.service.schedule.TimeIntervalIndex;
+import ru.yandex.practicum.service.snapshot.BinarySnapshot;
+import ru.yandex.practicum.service.snapshot.MappedSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Разбирает снимок FileBackedTaskManager кусками на всех ядрах и собирает доску одним проходом.
+ */
+final class ParallelSnapshotLoader {
+    // файл меньше этого читается последовательно: на нём запуск потоков дороже разбора
+    static final long MIN_PARALLEL_BYTES = 1 << 20;
+    // кусков больше, чем потоков: быстрые потоки забирают куски у медленных
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final InMemoryTaskManager manager;
+    private final int parallelism;
+
+    private ParallelSnapshotLoader(InMemoryTaskManager manager, int parallelism) {
+        this.manager = manager;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Загружает CSV-снимок в пустой менеджер и возвращает первую строку (заголовок).
+     */
+    static String loadCsv(InMemoryTaskManager manager, Path path, int parallelism) throws IOException {
+        return new ParallelSnapshotLoader(manager, parallelism).loadCsv(Files.readAllBytes(path));
+    }
+
+    /**
+     * Загружает двоичный снимок с индексом в пустой менеджер и возвращает его заголовок.
+     */
+    static String loadBinary(InMemoryTaskManager manager, MappedSnapshot snapshot, int parallelism) {
+        return new ParallelSnapshotLoader(manager, parallelism).loadBinary(snapshot);
+    }
+
+    private String loadCsv(byte[] bytes) {
+        int headerEnd = nextLine(bytes, 0);
+        String header = line(bytes, 0, headerEnd);
+        int chunkCount = parallelism * CHUNKS_PER_THREAD;
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = headerEnd;
+        for (int i = 1; i < chunkCount; i++) {
+            long approximate = headerEnd + (long) (bytes.length - headerEnd) * i / chunkCount;
+            bounds[i] = Math.max(bounds[i - 1], nextLine(bytes, (int) approximate));
+        }
+        bounds[chunkCount] = bytes.length;
+
+        build(parse(chunkCount, i -> {
+            Chunk chunk = new Chunk();
+            int lineStart = bounds[i];
+            while (lineStart < bounds[i + 1]) {
+                int lineEnd = nextLine(bytes, lineStart);
+                String value = line(bytes, lineStart, lineEnd);
+                if (!value.isBlank()) {
+                    FileBackedTaskManager.parseCsvLine(value, chunk);
+                }
+                lineStart = lineEnd;
+            }
+            return chunk;
+        }));
+        return header;
+    }
+
+    private String loadBinary(MappedSnapshot snapshot) {
+        int chunkCount = parallelism * CHUNKS_PER_THREAD;
+        build(parse(chunkCount, i -> {
+            Chunk chunk = new Chunk();
+            int to = (int) ((long) snapshot.size() * (i + 1) / chunkCount);
+            for (int position = (int) ((long) snapshot.size() * i / chunkCount); position < to; position++) {
+                try {
+                    snapshot.read(position, chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return chunk;
+        }));
+        return snapshot.getHeader();
+    }
+
+    private interface ChunkParser {
+        Chunk parse(int chunk);
+    }
+
+    private List<Chunk> parse(int chunkCount, ChunkParser parser) {
+        if (parallelism == 1) {
+            return IntStream.range(0, chunkCount).mapToObj(parser::parse).toList();
+        }
+        // параллельный поток, запущенный из задачи своего пула, выполняется в этом пуле
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, chunkCount).parallel().mapToObj(parser::parse).toList())
+                    .join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Начало следующей строки после from (или конец файла)
+    private static int nextLine(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return bytes.length;
+    }
+
+    private static String line(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length > 0 && bytes[end - 1] == '\n') {
+            length--;
+            if (length > 0 && bytes[start + length - 1] == '\r') {
+                length--;
+            }
+        }
+        return new String(bytes, start, length, StandardCharsets.UTF_8);
+    }
+
+    // Один проход по разобранным кускам: задачи, подзадачи, списки по типам, расписание
+    private void build(List<Chunk> chunks) {
+        int maxId = Task.NO_ID;
+        List<Task> scheduled = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (Task task : chunk.tasks) {
+                put(task);
+                maxId = Math.max(maxId, task.getId());
+                if (TimeIntervalIndex.isScheduled(task)) {
+                    scheduled.add(task);
+                }
+            }
+        }
+        for (Chunk chunk : chunks) {
+            for (PendingSubtask pending : chunk.subtasks) {
+                Task parentEpic = manager.tasks.get(pending.parentEpicId);
+                if (!(parentEpic instanceof Epic)) {
+                    throw new WrongParentEpicException("Родительской задачи " + pending.parentEpicId
+                            + " не существует.");
+                }
+                Subtask subtask = new Subtask(pending.id, pending.name, pending.description, pending.status,
+                        parentEpic, pending.startTime, pending.duration);
+                put(subtask);
+                maxId = Math.max(maxId, subtask.getId());
+                if (TimeIntervalIndex.isScheduled(subtask)) {
+                    scheduled.add(subtask);
+                }
+            }
+        }
+
+        Task[] byStart = scheduled.toArray(new Task[0]);
+        Arrays.parallelSort(byStart);
+        for (int i = 1; i < byStart.length; i++) {
+            // до i интервалы не пересекаются, значит, у предыдущей задачи самый поздний конец
+            if (byStart[i].getStartTime().isBefore(byStart[i - 1].getEndTime())) {
+                throw new TimeConflictException("Задача " + byStart[i].getId() +
+                        " пересекается по времени с существующей задачей.");
+            }
+        }
+        manager.prioritizedTasks.addAllSorted(byStart);
+        manager.idAllocator.observe(maxId);
+    }
+
+    private void put(Task task) {
+        if (manager.tasks.containsKey(task.getId())) {
+            throw new IllegalArgumentException("Задача " + task.getId() + " встречается в снимке дважды");
+        }
+        manager.putTask(task);
+    }
+
+    // Подзадача, чей эпик может быть ещё не создан
+    private static final class PendingSubtask {
+        final int id;
+        final String name;
+        final String description;
+        final Status status;
+        final int parentEpicId;
+        final LocalDateTime startTime;
+        final Duration duration;
+
+        PendingSubtask(int id, String name, String description, Status status, int parentEpicId,
+                       LocalDateTime startTime, Duration duration) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.status = status;
+            this.parentEpicId = parentEpicId;
+            this.startTime = startTime;
+            this.duration = duration;
+        }
+    }
+
+    // Задачи одного куска файла: заполняется одним потоком
+    private static final class Chunk implements BinarySnapshot.TaskSink {
+        final List<Task> tasks = new ArrayList<>();
+        final List<PendingSubtask> subtasks = new ArrayList<>();
+
+        @Override
+        public void accept(int id, TaskType type, String name, String description, Status status,
+                           int parentEpicId, LocalDateTime startTime, Duration duration) {
+            switch (type) {
+                case TASK -> tasks.add(new Task(id, name, description, status, startTime, duration));
+                case EPIC -> tasks.add(new Epic(id, name, description));
+                case SUBTASK -> subtasks.add(new PendingSubtask(id, name, description, status, parentEpicId,
+                        startTime, duration));
+            }
+        }
+    }
+}
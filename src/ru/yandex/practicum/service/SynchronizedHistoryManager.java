@@ -0,0 +1,53 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Task;
+
+import java.util.List;
+
+/**
+ * История просмотров под внешней блокировкой (общей с менеджером задач или собственной).
+ */
+class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+    private final Object lock;
+
+    SynchronizedHistoryManager(HistoryManager delegate, Object lock) {
+        this.delegate = delegate;
+        this.lock = lock;
+    }
+
+    @Override
+    public void add(Task task) {
+        synchronized (lock) {
+            delegate.add(task);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        synchronized (lock) {
+            delegate.remove(id);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            delegate.clear();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (lock) {
+            return delegate.getHistory();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        synchronized (lock) {
+            return delegate.getVersion();
+        }
+    }
+}
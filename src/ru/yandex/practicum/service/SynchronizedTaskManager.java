@@ -0,0 +1,239 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TimeSlot;
+import ru.yandex.practicum.entity.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Потокобезопасная обёртка над любым TaskManager: все вызовы выполняются под одной блокировкой.
+ * Коллекции возвращаются копиями, чтобы их можно было обходить (например, сериализовать в JSON)
+ * вне блокировки, пока другие потоки меняют менеджер.
+ * <p>
+ * Если менеджер сохраняет изменения отдельным потоком (DeferredPersistence), ожидание записи
+ * идёт после изменения уже без блокировки. flush и awaitAcknowledgement обёртки передаются
+ * такому менеджеру, для остальных ничего не делают.
+ */
+public class SynchronizedTaskManager implements TaskManager, DeferredPersistence {
+    private final TaskManager delegate;
+    private final Object lock = new Object();
+    private final HistoryManager historyManager;
+
+    private SynchronizedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+        // история под той же блокировкой, что и менеджер
+        this.historyManager = new SynchronizedHistoryManager(delegate.getHistoryManager(), lock);
+    }
+
+    public static TaskManager of(TaskManager manager) {
+        if (manager instanceof SynchronizedTaskManager || manager instanceof ConcurrentTaskManager) {
+            return manager;
+        }
+        return new SynchronizedTaskManager(Objects.requireNonNull(manager));
+    }
+
+    @Override
+    public void addTask(Task task) {
+        synchronized (lock) {
+            delegate.addTask(task);
+        }
+        afterChange();
+    }
+
+    @Override
+    public void addTasks(Collection<Task> tasks) {
+        synchronized (lock) {
+            delegate.addTasks(tasks);
+        }
+        afterChange();
+    }
+
+    @Override
+    public Map<Integer, Task> getAllTasks() {
+        synchronized (lock) {
+            return new HashMap<>(delegate.getAllTasks());
+        }
+    }
+
+    @Override
+    public Map<Integer, Task> getAllTasksByType(TaskType taskType) {
+        synchronized (lock) {
+            return new HashMap<>(delegate.getAllTasksByType(taskType));
+        }
+    }
+
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        synchronized (lock) {
+            // LinkedHashSet сохраняет порядок по времени начала
+            return new LinkedHashSet<>(delegate.getPrioritizedTasks());
+        }
+    }
+
+    @Override
+    public List<Task> getTasksPage(TaskType taskType, int afterId, int limit) {
+        synchronized (lock) {
+            return delegate.getTasksPage(taskType, afterId, limit);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        synchronized (lock) {
+            return delegate.getPrioritizedTasks(from, to, limit);
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration, int limit) {
+        synchronized (lock) {
+            return delegate.findFreeSlots(from, to, minDuration, limit);
+        }
+    }
+
+    @Override
+    public void clearAllTasks() {
+        synchronized (lock) {
+            delegate.clearAllTasks();
+        }
+        afterChange();
+    }
+
+    @Override
+    public void clearTasksByType(TaskType taskType) {
+        synchronized (lock) {
+            delegate.clearTasksByType(taskType);
+        }
+        afterChange();
+    }
+
+    @Override
+    public Optional<Task> getTaskById(int id) {
+        synchronized (lock) {
+            return delegate.getTaskById(id);
+        }
+    }
+
+    @Override
+    public void saveTaskToHistory(int id) {
+        synchronized (lock) {
+            delegate.saveTaskToHistory(id);
+        }
+    }
+
+    @Override
+    public Task placeTask(TaskType taskType, String name, String description, Epic parentEpic, Duration duration,
+                          LocalDateTime from, LocalDateTime to) {
+        Task task;
+        synchronized (lock) {
+            task = delegate.placeTask(taskType, name, description, parentEpic, duration, from, to);
+        }
+        afterChange();
+        return task;
+    }
+
+    @Override
+    public Task createTask(TaskType taskType, String name, String description, Epic parentEpic,
+                           LocalDateTime startTime, Duration duration) {
+        Task task;
+        synchronized (lock) {
+            task = delegate.createTask(taskType, name, description, parentEpic, startTime, duration);
+        }
+        afterChange();
+        return task;
+    }
+
+    @Override
+    public Task updateTask(TaskType taskType, int uniqueID, String name, String description, Status status,
+                           LocalDateTime startTime, Duration duration) {
+        Task task;
+        synchronized (lock) {
+            task = delegate.updateTask(taskType, uniqueID, name, description, status, startTime, duration);
+        }
+        afterChange();
+        return task;
+    }
+
+    @Override
+    public boolean deleteTask(Task task) {
+        boolean deleted;
+        synchronized (lock) {
+            deleted = delegate.deleteTask(task);
+        }
+        afterChange();
+        return deleted;
+    }
+
+    @Override
+    public Optional<Map<Integer, Task>> getSubtasksByEpic(Epic epic) {
+        synchronized (lock) {
+            return delegate.getSubtasksByEpic(epic).map(HashMap::new);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (lock) {
+            return delegate.getHistory();
+        }
+    }
+
+    @Override
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    @Override
+    public HistoryPartitions getHistoryPartitions() {
+        // истории клиентов потокобезопасны сами по себе
+        return delegate.getHistoryPartitions();
+    }
+
+    // версии - атомарные счётчики, блокировка не нужна
+    @Override
+    public long getVersion(TaskType taskType) {
+        return delegate.getVersion(taskType);
+    }
+
+    @Override
+    public long getPrioritizedVersion() {
+        return delegate.getPrioritizedVersion();
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        // журнал событий потокобезопасен сам по себе; ожидание событий не держит блокировку менеджера
+        return delegate.getEventLog();
+    }
+
+    @Override
+    public void clearCounterForId() {
+        synchronized (lock) {
+            delegate.clearCounterForId();
+        }
+    }
+
+    @Override
+    public void awaitAcknowledgement() {
+        if (delegate instanceof DeferredPersistence deferred) {
+            deferred.awaitAcknowledgement();
+        }
+    }
+
+    // без блокировки: запись идёт отдельным потоком, а изменения, сделанные до вызова, уже применены
+    @Override
+    public void flush() {
+        if (delegate instanceof DeferredPersistence deferred) {
+            deferred.flush();
+        }
+    }
+
+    private void afterChange() {
+        awaitAcknowledgement();
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskEvent;
+import ru.yandex.practicum.entity.TaskEventType;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.exceptions.EventsExpiredException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Последние изменения доски (см. TaskEvent) в кольцевом буфере; await ждёт новых событий.
+ */
+public class TaskEventLog {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final TaskEvent[] ring;
+    private final Lock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private long lastSeq;       // номер последнего события, 0 - событий ещё не было
+    private long firstSeq = 1;  // номер самого старого события в буфере
+
+    public TaskEventLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TaskEventLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость журнала событий должна быть больше 0");
+        }
+        this.ring = new TaskEvent[capacity];
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    // CREATED, UPDATED, DELETED - с задачей; CLEARED - с типом (null - вся доска)
+    public void publish(TaskEventType type, TaskType taskType, Task task) {
+        lock.lock();
+        try {
+            long seq = ++lastSeq;
+            ring[slot(seq)] = new TaskEvent(seq, type, taskType, task);
+            if (seq - firstSeq >= ring.length) {
+                firstSeq = seq - ring.length + 1;
+            }
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // До limit событий с номером больше since, по возрастанию номера
+    public List<TaskEvent> since(long since, int limit) {
+        lock.lock();
+        try {
+            return read(since, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * То же, что since, но если новых событий нет - ждёт первого не дольше timeout.
+     * Пустой список - за timeout ничего не изменилось.
+     */
+    public List<TaskEvent> await(long since, int limit, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            List<TaskEvent> events = read(since, limit);
+            while (events.isEmpty() && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+                events = read(since, limit);
+            }
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Забывает накопленные события, номера продолжаются с прежнего (например, после загрузки доски
+     * из файла: загрузка - не изменение, а номера, выданные до неё, больше не читаются).
+     */
+    public void truncate() {
+        lock.lock();
+        try {
+            Arrays.fill(ring, null);
+            firstSeq = lastSeq + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<TaskEvent> read(long since, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше 0");
+        }
+        if (since < firstSeq - 1 || since > lastSeq) {
+            throw new EventsExpiredException("События после " + since + " недоступны, доступны с " + firstSeq +
+                    " по " + lastSeq);
+        }
+        int count = (int) Math.min(limit, lastSeq - since);
+        List<TaskEvent> events = new ArrayList<>(count);
+        for (long seq = since + 1; seq <= since + count; seq++) {
+            events.add(ring[slot(seq)]);
+        }
+        return events;
+    }
+
+    private int slot(long seq) {
+        return (int) ((seq - 1) % ring.length);
+    }
+}
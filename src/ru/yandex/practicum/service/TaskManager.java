@@ -3,10 +3,12 @@ package ru.yandex.practicum.service;
 import ru.yandex.practicum.entity.Epic;
 import ru.yandex.practicum.entity.Status;
 import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TimeSlot;
 import ru.yandex.practicum.entity.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,12 +18,24 @@ public interface TaskManager {
 
     void addTask(Task task);
 
+    // Добавляет все задачи или ни одной (при пересечении по времени - TimeConflictException)
+    void addTasks(Collection<Task> tasks);
+
     Map<Integer, Task> getAllTasks();
 
     Map<Integer, Task> getAllTasksByType(TaskType taskType);
 
     Set<Task> getPrioritizedTasks();
 
+    // До limit задач типа taskType с id больше afterId, по возрастанию id
+    List<Task> getTasksPage(TaskType taskType, int afterId, int limit);
+
+    // До limit задач расписания, начинающихся в [from, to); null - граница не задана
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    // До limit свободных промежутков расписания в [from, to) длиной не меньше minDuration
+    List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration, int limit);
+
     void clearAllTasks();
 
     void clearTasksByType(TaskType taskType);
@@ -33,6 +47,11 @@ public interface TaskManager {
     Task createTask(TaskType taskType, String name, String description, Epic parentEpic,
                     LocalDateTime startTime, Duration duration);
 
+    // Создаёт задачу длительностью duration в самом раннем свободном промежутке [from, to):
+    // поиск промежутка и вставка атомарны; подходящего промежутка нет - TimeConflictException
+    Task placeTask(TaskType taskType, String name, String description, Epic parentEpic, Duration duration,
+                   LocalDateTime from, LocalDateTime to);
+
     Task updateTask(TaskType taskType, int uniqueID, String name, String description, Status status,
                     LocalDateTime startTime, Duration duration);
 
@@ -44,5 +63,17 @@ public interface TaskManager {
 
     HistoryManager getHistoryManager();
 
+    // Истории просмотров отдельных клиентов; getHistoryManager - общая история
+    HistoryPartitions getHistoryPartitions();
+
+    // Последние изменения доски с номерами по порядку (для /events)
+    TaskEventLog getEventLog();
+
+    // Версия списка задач типа taskType: растёт с каждым изменением, которое может поменять его JSON (для ETag)
+    long getVersion(TaskType taskType);
+
+    // Версия расписания: getPrioritizedTasks и свободные промежутки
+    long getPrioritizedVersion();
+
     void clearCounterForId();
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.service.handler;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import ru.yandex.practicum.entity.*;
@@ -10,12 +11,18 @@ import ru.yandex.practicum.exceptions.TaskIdConflictException;
 import ru.yandex.practicum.exceptions.TimeConflictException;
 import ru.yandex.practicum.service.TaskManager;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -23,13 +30,29 @@ import java.util.NoSuchElementException;
 
 
 public class BaseHttpHandler implements HttpHandler {
+    protected static final int DEFAULT_PAGE_LIMIT = 100;
+    protected static final int MAX_PAGE_LIMIT = 1000;
+    // ключ клиента для отдельной истории просмотров: заголовок или параметр ?client=
+    protected static final String CLIENT_HEADER = "X-Client-Id";
+    protected static final String CLIENT_PARAM = "client";
+    // POST /tasks/batch (/epics/batch, /subtasks/batch) - создание пачки задач
+    protected static final String BATCH_PATH = "batch";
+    // POST /tasks?place=auto&from=...&to=... - задача ставится в самый ранний свободный промежуток
+    protected static final String PLACE_PARAM = "place";
+    protected static final String PLACE_AUTO = "auto";
+
     public final String path;
     public final TaskManager manager;
     public final Gson gson;
+    // версии менеджера начинаются заново при каждом запуске: ETag прежнего сервера не должен совпасть
+    private final String etagPrefix = Long.toString(System.nanoTime(), 36);
 
     static class TaskListTypeToken extends TypeToken<List<Task>> {
     }
 
+    static class TaskDtoListTypeToken extends TypeToken<List<TaskDto>> {
+    }
+
     public BaseHttpHandler(String path, TaskManager managers, Gson gson) {
         this.path = path;
         this.manager = managers;
@@ -52,6 +75,9 @@ public class BaseHttpHandler implements HttpHandler {
         } catch (IllegalArgumentException e) {
             sendIllegalArgument(exchange, e.getMessage());//400
         } catch (Exception e) {
+            if (exchange.getResponseCode() != -1) {
+                throw e; // ответ уже начат - сервер оборвёт соединение
+            }
             sendResponse(exchange, e.getMessage(), 500);
         }
 
@@ -76,10 +102,19 @@ public class BaseHttpHandler implements HttpHandler {
     private void get(HttpExchange exchange) throws IOException {
         TaskType taskTypePath = TaskType.valueOf(seekTaskTypeStringFromPath(path));
         String param = getPathParam(exchange);
+        // версия читается до данных (см. notModified)
+        long version = manager.getVersion(taskTypePath);
 
         if (param.isEmpty()) {
-            String body = gson.toJson(manager.getAllTasksByType(taskTypePath));
-            sendText(exchange, body);
+            if (notModified(exchange, version)) {
+                return;
+            }
+            Map<String, String> query = getQueryParams(exchange);
+            if (query.containsKey("limit") || query.containsKey("after")) {
+                sendTasksPage(exchange, taskTypePath, query);
+            } else {
+                sendJson(exchange, manager.getAllTasksByType(taskTypePath));
+            }
             return;
         }
 
@@ -95,20 +130,63 @@ public class BaseHttpHandler implements HttpHandler {
             // Обработка /epics/{id}/subtasks
             Map<Integer, Task> taskList = manager.getSubtasksByEpic((Epic) task).orElse(new HashMap<>());
             taskList.put(id, task);
-            sendText(exchange, gson.toJson(taskList));
+            if (!notModified(exchange, version)) {
+                sendJson(exchange, taskList);
+            }
         } else {
             // Обработка /epics/{id}  либо /tasks/{id} либо /subtasks/{id}
-            sendText(exchange, gson.toJson(task));
+            String clientKey = getClientKey(exchange);
+            if (clientKey != null) {
+                // просмотр попадает в историю клиента, если он себя назвал
+                manager.getHistoryPartitions().forClient(clientKey).add(task);
+            }
+            if (!notModified(exchange, version)) {
+                sendJson(exchange, task);
+            }
         }
     }
 
 
+    /**
+     * Страница /tasks?limit=N&after=id: до N задач с id больше after, по возрастанию id.
+     * Если есть следующая страница, её курсор приходит в заголовке X-Next-After.
+     */
+    private void sendTasksPage(HttpExchange exchange, TaskType taskType, Map<String, String> query)
+            throws IOException {
+        int limit = parseLimit(query);
+        int after = query.containsKey("after") ? Integer.parseInt(query.get("after")) : 0;
+
+        // на одну задачу больше, чтобы узнать, есть ли следующая страница
+        List<Task> page = manager.getTasksPage(taskType, after, limit + 1);
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            exchange.getResponseHeaders().add("X-Next-After", String.valueOf(page.getLast().getId()));
+        }
+        Map<Integer, Task> body = new LinkedHashMap<>();
+        page.forEach(task -> body.put(task.getId(), task));
+        sendJson(exchange, body);
+    }
+
+    protected int parseLimit(Map<String, String> query) {
+        if (!query.containsKey("limit")) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        int limit = Integer.parseInt(query.get("limit"));
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE_LIMIT);
+        }
+        return limit;
+    }
+
     private void post(HttpExchange exchange) throws IOException {
         String param = getPathParam(exchange);
 
-        if (param.isEmpty()) {  //create
+        if (BATCH_PATH.equals(param)) {
+            postBatch(exchange);
+        } else if (param.isEmpty() && PLACE_AUTO.equals(getQueryParams(exchange).get(PLACE_PARAM))) {
+            postPlaced(exchange);
+        } else if (param.isEmpty()) {  //create
             Task task = parseTaskFromJson(exchange, false);
-            manager.addTask(task);
 
             // Отправляем ответ клиенту (201 create)
             String body = "Задача создана, ID: " + task.getId();
@@ -116,7 +194,6 @@ public class BaseHttpHandler implements HttpHandler {
 
         } else { //update
             Task task = parseTaskFromJson(exchange, true);
-            manager.addTask(task);
             // Отправляем ответ клиенту (201 update)
             String body = "Задача обновлена, ID: " + task.getId();
             sendTextAfterCreateAndUpdate(exchange, body); //201
@@ -124,6 +201,111 @@ public class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * POST /tasks/batch: JSON-массив задач добавляется целиком или не добавляется совсем
+     * (406, если задачи пересекаются по времени между собой или с расписанием) и сохраняется один раз.
+     * Ответ 201 - id созданных задач в порядке массива.
+     */
+    private void postBatch(HttpExchange exchange) throws IOException {
+        TaskType taskTypePath = TaskType.valueOf(seekTaskTypeStringFromPath(path));
+        List<TaskDto> taskDtos = readBody(exchange, new TaskDtoListTypeToken().getType());
+        if (taskDtos == null || taskDtos.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+
+        List<Task> batch = new ArrayList<>();
+        for (TaskDto taskDto : taskDtos) {
+            requireName(taskDto);
+            Epic parentEpic = findParentEpic(taskTypePath, taskDto);
+            if (taskDto.id != null && manager.getTaskById(taskDto.id).isPresent()) {
+                throw new TaskIdConflictException("Not Acceptable");
+            }
+            batch.add(switch (taskTypePath) {
+                case TASK -> new Task(taskDto.name, taskDto.description, taskDto.startTime, taskDto.duration);
+                case EPIC -> new Epic(taskDto.name, taskDto.description);
+                case SUBTASK -> new Subtask(taskDto.name, taskDto.description, parentEpic,
+                        taskDto.startTime, taskDto.duration);
+            });
+        }
+        manager.addTasks(batch);
+
+        List<Integer> ids = new ArrayList<>();
+        batch.forEach(task -> ids.add(task.getId()));
+        sendTextAfterCreateAndUpdate(exchange, gson.toJson(ids)); //201
+    }
+
+    /**
+     * POST /tasks?place=auto&from=2025-05-14T09:00&to=2025-05-15T00:00 (так же /subtasks): задача
+     * с duration, но без startTime, ставится в самый ранний свободный промежуток [from, to) - поиск
+     * и вставка атомарны. Ответ 201 - созданная задача с выбранным startTime, 406 - места нет.
+     */
+    private void postPlaced(HttpExchange exchange) throws IOException {
+        TaskType taskTypePath = TaskType.valueOf(seekTaskTypeStringFromPath(path));
+        Map<String, String> query = getQueryParams(exchange);
+        TaskDto taskDto = readBody(exchange, TaskDto.class);
+        requireName(taskDto);
+        Epic parentEpic = findParentEpic(taskTypePath, taskDto);
+        if (taskDto.id != null && manager.getTaskById(taskDto.id).isPresent()) {
+            throw new TaskIdConflictException("Not Acceptable");
+        }
+        Task task = manager.placeTask(taskTypePath, taskDto.name, taskDto.description, parentEpic,
+                taskDto.duration, parseTime(query.get("from")), parseTime(query.get("to")));
+        sendTextAfterCreateAndUpdate(exchange, gson.toJson(task)); //201
+    }
+
+    private <T> T readBody(HttpExchange exchange, Type type) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, type);
+        } catch (JsonSyntaxException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid data format: " + e.getMessage(), e);
+        }
+    }
+
+    protected LocalDateTime parseTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Время нужно передавать в формате ISO-8601, например 2025-05-14T09:00");
+        }
+    }
+
+    /**
+     * Условный GET: ставит ETag по версии данных и, если клиент прислал её же в If-None-Match,
+     * отвечает 304 без тела - Gson не вызывается. true - ответ уже отправлен.
+     * <p>
+     * Версию нужно прочитать до данных: если между чтениями доска изменилась, ответ окажется новее
+     * ETag и клиент просто получит 200 лишний раз. В обратном порядке старые данные могли бы уйти
+     * с новой версией, и клиент получал бы 304 на устаревшую копию до следующего изменения.
+     */
+    protected boolean notModified(HttpExchange h, Object version) throws IOException {
+        String etag = "\"" + etagPrefix + "-" + version + "\"";
+        h.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = h.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesEtag(ifNoneMatch, etag)) {
+            return false;
+        }
+        h.sendResponseHeaders(304, -1);
+        h.close();
+        return true;
+    }
+
+    // If-None-Match: "a", W/"b" или *; слабые ETag сравниваются как сильные
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void sendResponse(HttpExchange h, String text, int statusCode) throws IOException {
         byte[] resp = text.getBytes(StandardCharsets.UTF_8);
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
@@ -133,6 +315,28 @@ public class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Пишет ответ 200 в формате JSON сразу в тело ответа, без промежуточных String и byte[].
+     * Длина ответа заранее неизвестна, поэтому он уходит с Transfer-Encoding: chunked.
+     * По умолчанию JSON компактный, с отступами - только по запросу ?pretty=true.
+     */
+    protected void sendJson(HttpExchange h, Object body) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        h.sendResponseHeaders(200, 0); // 0 - длина неизвестна, chunked
+        JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8)));
+        if ("true".equals(getQueryParams(h).get("pretty"))) {
+            writer.setIndent("  ");
+        }
+        try {
+            gson.toJson(body, body.getClass(), writer);
+        } catch (RuntimeException e) {
+            // заголовки уже отправлены: поток не закрываем, иначе обрезанный ответ выглядел бы завершённым
+            throw new IOException("Ошибка сериализации ответа: " + e.getMessage(), e);
+        }
+        writer.close();
+    }
+
     protected void sendText(HttpExchange h, String text) throws IOException {
         sendResponse(h, text, 200);
     }
@@ -163,6 +367,33 @@ public class BaseHttpHandler implements HttpHandler {
         return requestedPath.substring(requestedPath.indexOf(beginPath) + beginPath.length());
     }
 
+    // Параметры из строки запроса: ?a=1&b=2 -> {a=1, b=2}
+    protected Map<String, String> getQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            if (index < 0) {
+                params.put(pair, "");
+            } else {
+                params.put(pair.substring(0, index), pair.substring(index + 1));
+            }
+        }
+        return params;
+    }
+
+    // Ключ клиента из заголовка X-Client-Id или параметра ?client=, null - клиент не указан
+    protected String getClientKey(HttpExchange exchange) {
+        String clientKey = exchange.getRequestHeaders().getFirst(CLIENT_HEADER);
+        if (clientKey == null) {
+            clientKey = getQueryParams(exchange).get(CLIENT_PARAM);
+        }
+        return clientKey;
+    }
+
     protected Task parseTaskFromJson(HttpExchange exchange, boolean isUpdate) throws IOException {
         try (InputStreamReader reader = new InputStreamReader(
                 exchange.getRequestBody(), StandardCharsets.UTF_8)) {
@@ -173,22 +404,9 @@ public class BaseHttpHandler implements HttpHandler {
             TaskDto taskDto = gson.fromJson(reader, TaskDto.class);
 
             // Валидация обязательных полей
-            if (taskDto.name == null || taskDto.name.isBlank()) {
-                throw new IllegalArgumentException("Required fields: name");
-            }
+            requireName(taskDto);
             // Для подзадачи проверяем parentEpicId (при создании)
-            Epic parentEpic = null;
-            if (taskTypePath == TaskType.SUBTASK) {
-                if (taskDto.parentEpicId == null) {
-                    throw new IllegalArgumentException("For SUBTASK, parentEpicId is required");
-                }
-                Task findedParentTask = manager.getTaskById(taskDto.parentEpicId).orElseThrow();
-                if (!(findedParentTask instanceof Epic)) {
-                    throw new IllegalArgumentException("Parent epic not found");
-                } else {
-                    parentEpic = (Epic) findedParentTask;
-                }
-            }
+            Epic parentEpic = findParentEpic(taskTypePath, taskDto);
 
             // Создание
             // проверить хранит ли Json id, и если да, то нет ли такого в базе,
@@ -249,6 +467,27 @@ public class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    private void requireName(TaskDto taskDto) {
+        if (taskDto == null || taskDto.name == null || taskDto.name.isBlank()) {
+            throw new IllegalArgumentException("Required fields: name");
+        }
+    }
+
+    // Эпик подзадачи по parentEpicId; для задач и эпиков - null
+    private Epic findParentEpic(TaskType taskType, TaskDto taskDto) {
+        if (taskType != TaskType.SUBTASK) {
+            return null;
+        }
+        if (taskDto.parentEpicId == null) {
+            throw new IllegalArgumentException("For SUBTASK, parentEpicId is required");
+        }
+        Task findedParentTask = manager.getTaskById(taskDto.parentEpicId).orElseThrow();
+        if (!(findedParentTask instanceof Epic)) {
+            throw new IllegalArgumentException("Parent epic not found");
+        }
+        return (Epic) findedParentTask;
+    }
+
     private String seekTaskTypeStringFromPath(String PATH) {
         if (PATH.startsWith("/tasks")) {
             return "TASK";
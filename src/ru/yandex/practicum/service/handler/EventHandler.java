@@ -0,0 +1,68 @@
+package ru.yandex.practicum.service.handler;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.practicum.entity.TaskEvent;
+import ru.yandex.practicum.exceptions.EventsExpiredException;
+import ru.yandex.practicum.service.TaskEventLog;
+import ru.yandex.practicum.service.TaskManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /events?since=N&wait=30&limit=100 - изменения доски после события N (см. TaskEventLog).
+ * <p>
+ * Если новых событий нет, ответ ждёт первого из них не дольше wait секунд (long polling, по умолчанию
+ * не ждёт). Номер, с которого читать дальше, приходит в заголовке X-Next-Since - и когда список пуст.
+ * Без since чтение начинается с текущего момента. 410 - события после since уже вытеснены из журнала:
+ * доску нужно перечитать целиком (GET /tasks, /epics, /subtasks) и продолжить с X-Next-Since.
+ */
+public class EventHandler extends BaseHttpHandler implements HttpHandler {
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    public EventHandler(String path, TaskManager managers, Gson gson) {
+        super(path, managers, gson);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        TaskEventLog eventLog = manager.getEventLog();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) || !"/events".equals(exchange.getRequestURI().getPath())) {
+                sendResponse(exchange, "Такой команды нет.", 405);
+                return;
+            }
+            Map<String, String> query = getQueryParams(exchange);
+            long since = query.containsKey("since") ? Long.parseLong(query.get("since")) : eventLog.lastSeq();
+            List<TaskEvent> events = eventLog.await(since, parseLimit(query), parseWait(query));
+
+            long nextSince = events.isEmpty() ? since : events.getLast().getSeq();
+            exchange.getResponseHeaders().add("X-Next-Since", String.valueOf(nextSince));
+            sendJson(exchange, events);
+        } catch (EventsExpiredException e) {
+            exchange.getResponseHeaders().add("X-Next-Since", String.valueOf(eventLog.lastSeq()));
+            sendResponse(exchange, e.getMessage(), 410);
+        } catch (IllegalArgumentException e) {
+            sendIllegalArgument(exchange, e.getMessage()); //400
+        } catch (InterruptedException e) {
+            // сервер останавливается
+            Thread.currentThread().interrupt();
+            sendResponse(exchange, "Сервер останавливается", 503);
+        }
+    }
+
+    private Duration parseWait(Map<String, String> query) {
+        if (!query.containsKey("wait")) {
+            return Duration.ZERO;
+        }
+        int wait = Integer.parseInt(query.get("wait"));
+        if (wait < 0 || wait > MAX_WAIT_SECONDS) {
+            throw new IllegalArgumentException("wait должен быть от 0 до " + MAX_WAIT_SECONDS + " секунд");
+        }
+        return Duration.ofSeconds(wait);
+    }
+}
@@ -3,9 +3,13 @@ package ru.yandex.practicum.service.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.practicum.service.HistoryManager;
+import ru.yandex.practicum.service.HistoryPartitions;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     public HistoryHandler(String path, TaskManager managers, Gson gson) {
@@ -16,16 +20,38 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     public void handle(HttpExchange exchange) throws IOException {
 
         try {
-            if ("GET".equals(exchange.getRequestMethod()) &&
-                    "/history".equals(exchange.getRequestURI().getPath())) {
-
-                String body = gson.toJson(manager.getHistory());
-                sendText(exchange, body);
+            String requestPath = exchange.getRequestURI().getPath();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, "Такой команды нет.", 405);
+            } else if ("/history".equals(requestPath)) {
+                String clientKey = getClientKey(exchange);
+                HistoryManager history = clientKey == null
+                        ? manager.getHistoryManager()
+                        : manager.getHistoryPartitions().forClient(clientKey);
+                // в истории те же объекты задач, что на доске (статус эпика меняется на месте),
+                // поэтому к версии истории добавляется номер последнего изменения доски
+                String version = history.getVersion() + "." + manager.getEventLog().lastSeq();
+                if (!notModified(exchange, version)) {
+                    sendJson(exchange, history.getHistory());
+                }
+            } else if ("/history/stats".equals(requestPath)) {
+                sendJson(exchange, stats(manager.getHistoryPartitions()));
             } else {
                 sendResponse(exchange, "Такой команды нет.", 405);
             }
+        } catch (IllegalArgumentException e) {
+            sendIllegalArgument(exchange, e.getMessage());
         } catch (Error e) {
             sendResponse(exchange, e.getMessage(), 500);
         }
     }
+
+    // Память под истории клиентов: число историй и сколько задач они хранят
+    private Map<String, Number> stats(HistoryPartitions partitions) {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("partitions", partitions.partitionCount());
+        stats.put("partitionCapacity", partitions.getPartitionCapacity());
+        stats.put("retainedNodes", partitions.retainedNodes());
+        return stats;
+    }
 }
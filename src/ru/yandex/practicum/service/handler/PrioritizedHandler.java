@@ -3,9 +3,15 @@ package ru.yandex.practicum.service.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TimeSlot;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     public PrioritizedHandler(String path, TaskManager managers, Gson gson) {
@@ -15,16 +21,62 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
-            if ("GET".equals(exchange.getRequestMethod()) &&
-                    "/prioritized".equals(exchange.getRequestURI().getPath())) {
+            String requestPath = exchange.getRequestURI().getPath();
+            long version = manager.getPrioritizedVersion();
+            if ("GET".equals(exchange.getRequestMethod()) && "/prioritized/free".equals(requestPath)) {
+                if (!notModified(exchange, version)) {
+                    sendFreeSlots(exchange, getQueryParams(exchange));
+                }
+            } else if ("GET".equals(exchange.getRequestMethod()) && "/prioritized".equals(requestPath)) {
+                if (notModified(exchange, version)) {
+                    return;
+                }
 
-                String body = gson.toJson(manager.getPrioritizedTasks());
-                sendText(exchange, body);
+                Map<String, String> query = getQueryParams(exchange);
+                if (query.containsKey("from") || query.containsKey("to") || query.containsKey("limit")) {
+                    sendRange(exchange, query);
+                } else {
+                    sendJson(exchange, manager.getPrioritizedTasks());
+                }
             } else {
                 sendResponse(exchange, "Такой команды нет.", 405);
             }
+        } catch (IllegalArgumentException e) {
+            sendIllegalArgument(exchange, e.getMessage()); //400
         } catch (Error e) {
             sendResponse(exchange, e.getMessage(), 500);
         }
     }
+
+    /**
+     * /prioritized?from=2025-05-14T09:00&to=2025-05-15T00:00&limit=N - до N задач,
+     * начинающихся в [from, to). Если в диапазоне есть ещё задачи, начало следующей
+     * приходит в заголовке X-Next-From: его можно передать как from следующего запроса.
+     */
+    private void sendRange(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDateTime from = parseTime(query.get("from"));
+        LocalDateTime to = parseTime(query.get("to"));
+        int limit = query.containsKey("limit") ? parseLimit(query) : Integer.MAX_VALUE - 1;
+
+        List<Task> page = manager.getPrioritizedTasks(from, to, limit + 1);
+        if (page.size() > limit) {
+            exchange.getResponseHeaders().add("X-Next-From", page.get(limit).getStartTime().toString());
+            page = page.subList(0, limit);
+        }
+        sendJson(exchange, page);
+    }
+
+    /**
+     * /prioritized/free?from=2025-05-14T09:00&to=2025-05-15T00:00&duration=30&limit=N - до N свободных
+     * промежутков [start, end) в [from, to) длиной не меньше duration минут (по умолчанию - любые).
+     */
+    private void sendFreeSlots(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDateTime from = parseTime(query.get("from"));
+        LocalDateTime to = parseTime(query.get("to"));
+        Duration minDuration = query.containsKey("duration")
+                ? Duration.ofMinutes(Long.parseLong(query.get("duration")))
+                : Duration.ZERO;
+        List<TimeSlot> slots = manager.findFreeSlots(from, to, minDuration, parseLimit(query));
+        sendJson(exchange, slots);
+    }
 }
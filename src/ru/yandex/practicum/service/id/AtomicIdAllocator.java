@@ -0,0 +1,34 @@
+package ru.yandex.practicum.service.id;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Последовательные id на одном атомарном счётчике: без блокировок, но все потоки
+ * обновляют одну и ту же ячейку памяти.
+ */
+public class AtomicIdAllocator implements IdAllocator {
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void observe(int id) {
+        int current = lastId.get();
+        while (id > current && !lastId.compareAndSet(current, id)) {
+            current = lastId.get();
+        }
+    }
+
+    @Override
+    public int lastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public void reset() {
+        lastId.set(0);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.service.id;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выдаёт id блоками, арендованными потоком у общего счётчика: id уникальны, но не последовательны.
+ */
+public class BlockIdAllocator implements IdAllocator {
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final long EMPTY_LEASE = pack(1, 0);
+
+    private final int blockSize;
+    private final AtomicLong state = new AtomicLong();  // (поколение, последний арендованный или занятый id)
+    // аренды живых потоков; аренда завершившегося потока собирается GC и удаляется при следующем обходе
+    private final Queue<WeakReference<Lease>> leases = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Lease> lease = ThreadLocal.withInitial(this::register);
+
+    public BlockIdAllocator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdAllocator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть больше 0");
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int nextId() {
+        Lease current = lease.get();
+        while (true) {
+            long range = current.range.get();
+            int next = high(range);
+            if (next <= low(range)) {
+                if (current.range.compareAndSet(range, pack(next + 1, low(range)))) {
+                    return next;
+                }
+                continue;  // observe сдвинул аренду
+            }
+            renew(current, range);
+        }
+    }
+
+    // Арендует новый блок; если одновременно observe менял поколение, он мог не увидеть блок - тогда блок выбрасывается
+    private void renew(Lease current, long exhausted) {
+        long snapshot;
+        int last;
+        do {
+            snapshot = state.get();
+            last = low(snapshot) + blockSize;
+        } while (!state.compareAndSet(snapshot, pack(high(snapshot), last)));
+        if (!current.range.compareAndSet(exhausted, pack(last - blockSize + 1, last))) {
+            return;  // аренду сбросил reset
+        }
+        if (high(state.get()) != high(snapshot)) {
+            current.range.compareAndSet(pack(last - blockSize + 1, last), EMPTY_LEASE);
+        }
+    }
+
+    @Override
+    public void observe(int id) {
+        while (true) {
+            long snapshot = state.get();
+            int leasedUpTo = low(snapshot);
+            if (id > leasedUpTo) {
+                // id выше всех аренд: достаточно поднять счётчик
+                if (state.compareAndSet(snapshot, pack(high(snapshot), id))) {
+                    return;
+                }
+            } else if (state.compareAndSet(snapshot, pack(high(snapshot) + 1, leasedUpTo))) {
+                skipInLeases(id);
+                return;
+            }
+        }
+    }
+
+    // id мог оказаться внутри чужой аренды: сдвигаем её начало за id
+    private void skipInLeases(int id) {
+        for (Iterator<WeakReference<Lease>> it = leases.iterator(); it.hasNext(); ) {
+            Lease other = it.next().get();
+            if (other == null) {
+                it.remove();
+                continue;
+            }
+            long range = other.range.get();
+            while (high(range) <= id && id <= low(range)
+                    && !other.range.compareAndSet(range, pack(id + 1, low(range)))) {
+                range = other.range.get();
+            }
+        }
+    }
+
+    @Override
+    public int lastId() {
+        return low(state.get());
+    }
+
+    @Override
+    public void reset() {
+        long snapshot = state.get();
+        while (!state.compareAndSet(snapshot, pack(high(snapshot) + 1, 0))) {
+            snapshot = state.get();
+        }
+        for (WeakReference<Lease> reference : leases) {
+            Lease other = reference.get();
+            if (other != null) {
+                other.range.set(EMPTY_LEASE);
+            }
+        }
+    }
+
+    private Lease register() {
+        Lease created = new Lease();
+        leases.add(new WeakReference<>(created));
+        return created;
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFF_FFFFL);
+    }
+
+    private static int high(long value) {
+        return (int) (value >>> 32);
+    }
+
+    private static int low(long value) {
+        return (int) value;
+    }
+
+    private static final class Lease {
+        final AtomicLong range = new AtomicLong(EMPTY_LEASE);  // (следующий id, последний id блока)
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.service.id;
+
+/**
+ * Источник идентификаторов задач. У каждого менеджера свой экземпляр,
+ * поэтому id разных менеджеров не зависят друг от друга.
+ */
+public interface IdAllocator {
+
+    // Следующий свободный id, всегда больше 0
+    int nextId();
+
+    // Сообщает о занятом id (задача из файла или с заданным id), чтобы он не был выдан повторно
+    void observe(int id);
+
+    // Наибольший выданный или занятый id - его сохраняют вместе с задачами
+    int lastId();
+
+    void reset();
+}
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.service.schedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Битовая карта занятости расписания по корзинам фиксированной длины (например, по 15 минут).
+ * <p>
+ * Корзины нумеруются от начала эпохи; бит корзины поднят, если её касается хотя бы одна задача.
+ * На каждый день, где есть задачи, хранится массив long (96 корзин по 15 минут - два слова),
+ * дни без задач не хранятся вовсе.
+ * <p>
+ * Карта грубее расписания: задачи 10:00-10:10 и 10:10-10:20 обе касаются корзины 10:00-10:15.
+ * Поэтому свободные корзины значат, что пересечения точно нет, а занятые - только что оно возможно.
+ */
+final class OccupancyGrid {
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final long bucketSeconds;
+    private final int bucketsPerDay;
+    private final int wordsPerDay;
+    private final Map<Long, long[]> days = new HashMap<>();
+    // Последний запрошенный день: проверки подряд почти всегда попадают в один день,
+    // и повторный HashMap.get с упаковкой ключа в Long не нужен. Одна ссылка - пара не рвётся при чтении
+    private CachedDay cached = new CachedDay(Long.MIN_VALUE, null);
+
+    private record CachedDay(long day, long[] words) {
+    }
+
+    OccupancyGrid(Duration bucket) {
+        long seconds = bucket.getSeconds();
+        if (bucket.getNano() != 0 || seconds <= 0 || SECONDS_PER_DAY % seconds != 0) {
+            throw new IllegalArgumentException("Длина корзины должна быть целым числом секунд и делить сутки нацело");
+        }
+        this.bucketSeconds = seconds;
+        this.bucketsPerDay = (int) (SECONDS_PER_DAY / seconds);
+        this.wordsPerDay = (bucketsPerDay + 63) >>> 6;
+    }
+
+    long bucketSeconds() {
+        return bucketSeconds;
+    }
+
+    // Корзина, в которую попадает момент time
+    long firstBucket(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    // Последняя корзина, которой касается интервал, заканчивающийся в end (не включительно)
+    long lastBucket(LocalDateTime end) {
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC) + (end.getNano() > 0 ? 1 : 0);
+        return Math.floorDiv(endSecond - 1, bucketSeconds);
+    }
+
+    LocalDateTime bucketStart(long bucket) {
+        return LocalDateTime.ofEpochSecond(bucket * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    void mark(LocalDateTime start, LocalDateTime end) {
+        set(firstBucket(start), lastBucket(end));
+    }
+
+    boolean isFree(LocalDateTime start, LocalDateTime end) {
+        long last = lastBucket(end);
+        return nextSet(firstBucket(start), last + 1) > last;
+    }
+
+    // Поднимает биты корзин first..last включительно
+    void set(long first, long last) {
+        for (long bucket = first; bucket <= last; ) {
+            long day = Math.floorDiv(bucket, bucketsPerDay);
+            long dayStart = day * bucketsPerDay;
+            int from = (int) (bucket - dayStart);
+            int to = (int) Math.min(last - dayStart, bucketsPerDay - 1);
+            long[] words = words(day);
+            if (words == null) {
+                words = new long[wordsPerDay];
+                days.put(day, words);
+                cached = new CachedDay(day, words);
+            }
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                words[word] |= mask(word, from, to);
+            }
+            bucket = dayStart + bucketsPerDay;
+        }
+    }
+
+    // Сбрасывает биты корзин first..last включительно; пустые дни удаляются
+    void clear(long first, long last) {
+        for (long bucket = first; bucket <= last; ) {
+            long day = Math.floorDiv(bucket, bucketsPerDay);
+            long dayStart = day * bucketsPerDay;
+            int from = (int) (bucket - dayStart);
+            int to = (int) Math.min(last - dayStart, bucketsPerDay - 1);
+            long[] words = words(day);
+            if (words != null) {
+                for (int word = from >>> 6; word <= to >>> 6; word++) {
+                    words[word] &= ~mask(word, from, to);
+                }
+                if (isEmpty(words)) {
+                    days.remove(day);
+                    cached = new CachedDay(day, null);
+                }
+            }
+            bucket = dayStart + bucketsPerDay;
+        }
+    }
+
+    void clearAll() {
+        days.clear();
+        cached = new CachedDay(Long.MIN_VALUE, null);
+    }
+
+    private long[] words(long day) {
+        CachedDay current = cached;
+        if (current.day() != day) {
+            current = new CachedDay(day, days.get(day));
+            cached = current;
+        }
+        return current.words();
+    }
+
+    // Первая занятая корзина в [from, to) или to, если таких нет
+    long nextSet(long from, long to) {
+        for (long bucket = from; bucket < to; ) {
+            long day = Math.floorDiv(bucket, bucketsPerDay);
+            long dayStart = day * bucketsPerDay;
+            long[] words = words(day);
+            if (words != null) {
+                int start = (int) (bucket - dayStart);
+                int end = (int) Math.min(to - 1 - dayStart, bucketsPerDay - 1);
+                for (int word = start >>> 6; word <= end >>> 6; word++) {
+                    long bits = words[word] & mask(word, start, end);
+                    if (bits != 0) {
+                        return dayStart + ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+                    }
+                }
+            }
+            bucket = dayStart + bucketsPerDay;
+        }
+        return to;
+    }
+
+    // Первая свободная корзина в [from, to) или to, если таких нет
+    long nextClear(long from, long to) {
+        for (long bucket = from; bucket < to; ) {
+            long day = Math.floorDiv(bucket, bucketsPerDay);
+            long dayStart = day * bucketsPerDay;
+            long[] words = words(day);
+            if (words == null) {
+                return bucket;  // в этот день задач нет
+            }
+            int start = (int) (bucket - dayStart);
+            int end = (int) Math.min(to - 1 - dayStart, bucketsPerDay - 1);
+            for (int word = start >>> 6; word <= end >>> 6; word++) {
+                long bits = ~words[word] & mask(word, start, end);
+                if (bits != 0) {
+                    return dayStart + ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            bucket = dayStart + bucketsPerDay;
+        }
+        return to;
+    }
+
+    // Биты слова word, попадающие в корзины from..to дня включительно
+    private static long mask(int word, int from, int to) {
+        int base = word << 6;
+        int low = Math.max(from, base) - base;
+        int high = Math.min(to, base + 63) - base;
+        return (-1L >>> (63 - high)) & (-1L << low);
+    }
+
+    private static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,293 @@
+package ru.yandex.practicum.service.schedule;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Индекс интервалов [startTime, endTime) задач, стоящих в расписании.
+ * <p>
+ * Индекс хранит только непересекающиеся интервалы (менеджер не пускает в него
+ * задачи с конфликтом по времени), поэтому концы интервалов упорядочены так же,
+ * как и начала. Значит, для проверки пересечения достаточно ближайшей задачи слева
+ * и задач справа, начинающихся раньше конца проверяемой: O(log n + k),
+ * где k - количество найденных пересечений.
+ * <p>
+ * Дополнительно можно включить карту занятости по корзинам фиксированной длины (enableOccupancyGrid):
+ * тогда проверка пересечения там, где корзины свободны, и поиск длинных свободных промежутков идут
+ * по битам карты, а к дереву индекс обращается только у занятых корзин и за точными границами.
+ */
+public class TimeIntervalIndex {
+
+    private final NavigableSet<Task> tasks;
+    private final NavigableSet<Task> view;
+    private OccupancyGrid grid;  // null - карта занятости не ведётся
+
+    public TimeIntervalIndex() {
+        this(new TreeSet<>());
+    }
+
+    private TimeIntervalIndex(NavigableSet<Task> tasks) {
+        this.tasks = tasks;
+        this.view = Collections.unmodifiableNavigableSet(tasks);
+    }
+
+    /**
+     * Индекс для многопоточного менеджера: читать и обходить его можно без блокировок,
+     * но проверку пересечения вместе с добавлением нужно выполнять под внешней блокировкой.
+     */
+    public static TimeIntervalIndex concurrent() {
+        return new TimeIntervalIndex(new ConcurrentSkipListSet<>());
+    }
+
+    // В расписание попадают только задачи (не эпики) с началом и положительной длительностью
+    public static boolean isScheduled(Task task) {
+        if (task == null || task instanceof Epic || task.getStartTime() == null) {
+            return false;
+        }
+        Duration duration = task.getDuration();
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    /**
+     * Включает карту занятости с корзинами длины bucket (длина должна делить сутки нацело).
+     * Карта строится по задачам индекса и дальше обновляется вместе с ним; результаты проверок
+     * и поиска те же, что и без неё. Карта не потокобезопасна, поэтому ConcurrentTaskManager её не включает.
+     */
+    public void enableOccupancyGrid(Duration bucket) {
+        OccupancyGrid newGrid = new OccupancyGrid(bucket);
+        for (Task task : tasks) {
+            newGrid.mark(task.getStartTime(), task.getEndTime());
+        }
+        grid = newGrid;
+    }
+
+    public boolean add(Task task) {
+        if (!tasks.add(task)) {
+            return false;
+        }
+        if (grid != null) {
+            grid.mark(task.getStartTime(), task.getEndTime());
+        }
+        return true;
+    }
+
+    /**
+     * Заполняет пустой индекс задачами, уже упорядоченными по startTime и проверенными на пересечения
+     * (например, при загрузке снимка): задачи вставляются без проверки пересечения каждой.
+     */
+    public void addAllSorted(Task[] sorted) {
+        if (!tasks.isEmpty()) {
+            throw new IllegalStateException("Индекс должен быть пустым");
+        }
+        for (Task task : sorted) {
+            add(task);
+        }
+    }
+
+    public boolean remove(Task task) {
+        if (!tasks.remove(task)) {
+            return false;
+        }
+        if (grid != null) {
+            unmark(task);
+        }
+        return true;
+    }
+
+    public void clear() {
+        tasks.clear();
+        if (grid != null) {
+            grid.clearAll();
+        }
+    }
+
+    // Внутренние корзины задачи принадлежат только ей, крайние могут делить соседи слева и справа
+    private void unmark(Task removed) {
+        long first = grid.firstBucket(removed.getStartTime());
+        long last = grid.lastBucket(removed.getEndTime());
+        grid.clear(first, last);
+        Task left = tasks.lower(removed);
+        if (left != null && grid.lastBucket(left.getEndTime()) == first) {
+            grid.set(first, first);
+        }
+        Task right = tasks.higher(removed);
+        if (right != null && grid.firstBucket(right.getStartTime()) == last) {
+            grid.set(last, last);
+        }
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    // Живое представление только для чтения, отсортированное по startTime
+    public NavigableSet<Task> asSet() {
+        return view;
+    }
+
+    /**
+     * Живое представление задач, начинающихся в [from, to); null - граница не задана.
+     * Границы находятся за O(log n), обход отдаёт задачи по одной.
+     */
+    public NavigableSet<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Task> range = view;
+        if (from != null) {
+            range = range.tailSet(probe(from), true);
+        }
+        if (to != null) {
+            range = range.headSet(probe(to), false);
+        }
+        return range;
+    }
+
+    /**
+     * До limit свободных промежутков в [from, to) длиной не меньше minDuration, по возрастанию.
+     * Один проход по расписанию от ближайшей к from задачи: O(log n + m), где m - задачи,
+     * пройденные до limit-го промежутка (промежутки короче minDuration тоже приходится пройти).
+     */
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration, int limit) {
+        if (grid != null && minDuration.getSeconds() >= 2 * grid.bucketSeconds()) {
+            return findFreeSlotsOnGrid(from, to, minDuration, limit);
+        }
+        List<TimeSlot> slots = new ArrayList<>();
+        // задачи не пересекаются, поэтому из начавшихся до from позже всех заканчивается ближайшая слева
+        LocalDateTime cursor = from;
+        Task left = tasks.lower(probe(from));
+        if (left != null && left.getEndTime().isAfter(cursor)) {
+            cursor = left.getEndTime();
+        }
+        for (Task task : startingBetween(from, to)) {
+            addSlot(slots, cursor, task.getStartTime(), minDuration);
+            if (slots.size() >= limit) {
+                return slots;
+            }
+            if (task.getEndTime().isAfter(cursor)) {
+                cursor = task.getEndTime();
+            }
+        }
+        addSlot(slots, cursor, to, minDuration);
+        return slots;
+    }
+
+    /**
+     * Поиск по карте: промежуток длиной не меньше minDuration целиком накрывает не меньше
+     * minDuration / корзину - 1 свободных корзин подряд. Такие серии ищутся по битам карты (по 64 корзины
+     * за операцию), более короткие промежутки пропускаются без обращения к дереву. Точные границы
+     * промежутка у найденной серии дают соседние задачи в дереве: O(log n) на серию.
+     */
+    private List<TimeSlot> findFreeSlotsOnGrid(LocalDateTime from, LocalDateTime to, Duration minDuration,
+                                               int limit) {
+        List<TimeSlot> slots = new ArrayList<>();
+        long minRun = minDuration.getSeconds() / grid.bucketSeconds() - 1;
+        long bucket = grid.firstBucket(from);
+        long end = grid.lastBucket(to) + 1;
+        while (slots.size() < limit) {
+            long free = grid.nextClear(bucket, end);
+            if (free >= end) {
+                break;
+            }
+            long runEnd = grid.nextSet(free, end);
+            if (runEnd - free < minRun && runEnd < end) {
+                bucket = runEnd;  // серия короче нужной и не упирается в to - промежуток слишком короткий
+                continue;
+            }
+            // свободной корзины не касается ни одна задача: слева от неё - конец задачи, справа - начало
+            Task probe = probe(grid.bucketStart(free));
+            Task left = tasks.lower(probe);
+            Task right = tasks.ceiling(probe);
+            LocalDateTime start = left == null || left.getEndTime().isBefore(from) ? from : left.getEndTime();
+            LocalDateTime finish = right == null || right.getStartTime().isAfter(to) ? to : right.getStartTime();
+            addSlot(slots, start, finish, minDuration);
+            if (right == null || !right.getStartTime().isBefore(to)) {
+                break;
+            }
+            bucket = grid.firstBucket(right.getStartTime());
+        }
+        return slots;
+    }
+
+    private static void addSlot(List<TimeSlot> slots, LocalDateTime start, LocalDateTime end, Duration minDuration) {
+        if (start.isBefore(end) && Duration.between(start, end).compareTo(minDuration) >= 0) {
+            slots.add(new TimeSlot(start, end));
+        }
+    }
+
+    // Задачи в индексе сравниваются по startTime, поэтому границей служит задача-пустышка с нужным началом
+    private static Task probe(LocalDateTime startTime) {
+        return new Task(Task.NO_ID, "", "", Status.NEW, startTime, Duration.ZERO);
+    }
+
+    /**
+     * Пересекается ли task по времени с задачей индекса; прежняя версия самой задачи (с тем же id) не считается.
+     * Достаточно ближайшей задачи слева и задач справа, начинающихся до конца task. Объектов не создаёт.
+     */
+    public boolean hasOverlap(Task task) {
+        if (!isScheduled(task)) {
+            return false;
+        }
+        if (grid != null && grid.isFree(task.getStartTime(), task.getEndTime())) {
+            return false;  // корзин задачи не касается никто, дерево не нужно
+        }
+        Task left = tasks.floor(task);
+        if (left != null && left.equals(task)) {
+            left = tasks.lower(left);
+        }
+        if (left != null && left.endsAfterStartOf(task)) {
+            return true;
+        }
+        for (Task right = tasks.higher(task); right != null && task.endsAfterStartOf(right); right = tasks.higher(right)) {
+            if (!right.equals(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет пачку задач (задачи расписания, упорядоченные по startTime) одним проходом:
+     * внутри пачки каждую задачу достаточно сравнить с предыдущей, с индексом - с ближайшей слева
+     * и начинающимися до её конца, как в hasOverlap. Прежние версии задач пачки (с тем же id) не учитываются.
+     * Возвращает задачу пачки, пересекающуюся с другой задачей пачки или индекса, либо null.
+     * O(k log n) для пачки из k задач.
+     */
+    public Task findOverlap(List<Task> sortedBatch) {
+        Set<Integer> replacedIds = new HashSet<>();
+        for (Task task : sortedBatch) {
+            if (task.hasId()) {
+                replacedIds.add(task.getId());
+            }
+        }
+        Task previous = null;
+        for (Task task : sortedBatch) {
+            // до task пересечений нет, поэтому самый поздний конец в пачке - у предыдущей задачи
+            if (previous != null && previous.endsAfterStartOf(task)) {
+                return task;
+            }
+            previous = task;
+            if (grid != null && grid.isFree(task.getStartTime(), task.getEndTime())) {
+                continue;
+            }
+
+            Task left = tasks.floor(task);
+            while (left != null && replacedIds.contains(left.getId())) {
+                left = tasks.lower(left);
+            }
+            if (left != null && left.endsAfterStartOf(task)) {
+                return task;
+            }
+            for (Task right = tasks.higher(task); right != null && task.endsAfterStartOf(right); right = tasks.higher(right)) {
+                if (!replacedIds.contains(right.getId())) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+}
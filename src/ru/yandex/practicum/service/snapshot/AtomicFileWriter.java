@@ -0,0 +1,96 @@
+package ru.yandex.practicum.service.snapshot;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись файла целиком без риска оставить его недописанным.
+ * <p>
+ * 1. Содержимое пишется во временный файл target.tmp рядом с target (на той же файловой системе).
+ * 2. При sync временный файл сбрасывается на диск (fsync) до переименования.
+ * 3. Временный файл атомарно переименовывается в target; при sync сбрасывается и каталог,
+ * чтобы на диске осталось само переименование.
+ * <p>
+ * Если запись оборвалась (исключение или падение процесса), target остаётся прежним;
+ * временный файл удаляется, а оставшийся после падения процесса перезаписывается следующей записью.
+ */
+public final class AtomicFileWriter {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @FunctionalInterface
+    public interface Content {
+        // поток можно закрыть: временный файл закроет сам AtomicFileWriter
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    public static Path tempFileFor(Path target) {
+        return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    }
+
+    public static void write(Path target, boolean sync, Content content) throws IOException {
+        Path temp = tempFileFor(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            content.writeTo(new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                }
+
+                // закрытие содержимым только сбрасывает буфер: канал нужен для fsync
+                @Override
+                public void close() throws IOException {
+                    out.flush();
+                }
+            });
+            out.flush();
+            if (sync) {
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        move(temp, target);
+        if (sync) {
+            syncDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    // Сбрасывает на диск файл, записанный ранее без sync, и его каталог
+    public static void sync(Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все ОС позволяют открыть каталог (например, Windows): там переименование сбрасывает сама ФС
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package ru.yandex.practicum.service.snapshot;
+
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Subtask;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Двоичный снимок доски.
+ * <pre>
+ * "KNB" версия                  - 4 байта
+ * заголовок                     - строка (те же поля, что в первой строке CSV: lastId=..., journalSeq=...)
+ * число задач                   - varint
+ * задача:
+ *   тип                         - 1 байт (TaskType.ordinal)
+ *   id                          - varint
+ *   название, описание          - строки
+ *   статус                      - 1 байт (Status.ordinal), у эпика не пишется - считается по подзадачам
+ *   id эпика                    - varint, только у подзадачи
+ *   начало                      - varlong: 0 - нет, иначе zigzag(минуты от 1970-01-01T00:00) + 1; у эпика не пишется
+ *   длительность в минутах      - varlong: 0 - нет, иначе минуты + 1; у эпика не пишется
+ * строка = длина в байтах (varint) + UTF-8
+ * индекс (с версии 2)           - для чтения отдельных задач без разбора всего файла (см. MappedSnapshot):
+ *   n                           - int
+ *   id                          - int[n], по возрастанию
+ *   смещение записи от начала   - long[n]
+ *   тип                         - byte[n]
+ *   начала списков подзадач     - int[n + 1]: подзадачи эпика i - subtasks[start[i]..start[i + 1])
+ *   подзадачи                   - int[]: номера подзадач в индексе
+ * смещение индекса              - long, последние 8 байт файла
+ * </pre>
+ * Время хранится с точностью до минуты, как и в CSV. Эпики пишутся раньше подзадач,
+ * поэтому при загрузке эпик подзадачи всегда уже известен. Последовательное чтение (read)
+ * индекс не использует и читает также снимки версии 1, записанные без него.
+ */
+public final class BinarySnapshot {
+    static final byte[] MAGIC = {'K', 'N', 'B'};
+    static final byte VERSION = 2;
+    static final byte MIN_VERSION = 1;
+    // наибольшая длина строки: защита от огромной длины в повреждённом файле
+    static final int MAX_STRING_BYTES = 1 << 24;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    /**
+     * Получатель задач при чтении снимка. parentEpicId = Task.NO_ID у всех, кроме подзадач.
+     */
+    @FunctionalInterface
+    public interface TaskSink {
+        void accept(int id, TaskType type, String name, String description, Status status,
+                    int parentEpicId, LocalDateTime startTime, Duration duration);
+    }
+
+    // Источник байтов записи: поток при последовательном чтении или отображённый в память файл
+    interface Source {
+        int readUnsignedByte() throws IOException;
+
+        void readFully(byte[] bytes) throws IOException;
+    }
+
+    private BinarySnapshot() {
+    }
+
+    // Снимок в двоичном формате, если файл начинается с его сигнатуры
+    public static boolean isBinary(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    public static void write(Path path, String header, Collection<? extends Task> tasks) throws IOException {
+        write(Files.newOutputStream(path), header, tasks);
+    }
+
+    // Пишет снимок в поток и закрывает его
+    public static void write(OutputStream target, String header, Collection<? extends Task> tasks)
+            throws IOException {
+        try (SnapshotOutput out = new SnapshotOutput(target)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeString(out, header);
+            writeVarLong(out, tasks.size());
+            IndexBuilder index = new IndexBuilder(tasks.size());
+            // сначала эпики, чтобы при загрузке подзадача находила свой эпик
+            for (Task task : tasks) {
+                if (task instanceof Epic) {
+                    index.add(task, out.position());
+                    writeTask(out, task);
+                }
+            }
+            for (Task task : tasks) {
+                if (!(task instanceof Epic)) {
+                    index.add(task, out.position());
+                    writeTask(out, task);
+                }
+            }
+            long indexOffset = out.position();
+            index.write(out);
+            out.writeLong(indexOffset);
+        }
+    }
+
+    /**
+     * Читает снимок: возвращает заголовок, задачи по одной отдаёт в sink.
+     */
+    public static String read(Path path, TaskSink sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            Source source = source(in);
+            String header = readHeader(source);
+            long count = readVarLong(source);
+            for (long i = 0; i < count; i++) {
+                readTask(source, sink);
+            }
+            return header;
+        }
+    }
+
+    // Только заголовок, без чтения задач
+    public static String readHeader(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readHeader(source(in));
+        }
+    }
+
+    private static Source source(DataInputStream in) {
+        return new Source() {
+            @Override
+            public int readUnsignedByte() throws IOException {
+                return in.readUnsignedByte();
+            }
+
+            @Override
+            public void readFully(byte[] bytes) throws IOException {
+                in.readFully(bytes);
+            }
+        };
+    }
+
+    static String readHeader(Source in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Файл не является двоичным снимком");
+        }
+        int version = in.readUnsignedByte();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+        return readString(in);
+    }
+
+    private static void writeTask(SnapshotOutput out, Task task) throws IOException {
+        TaskType type = task.getTaskType();
+        out.writeByte(type.ordinal());
+        writeVarLong(out, task.getId());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        if (type == TaskType.EPIC) {
+            return;
+        }
+        out.writeByte(task.getStatus().ordinal());
+        if (task instanceof Subtask subtask) {
+            writeVarLong(out, subtask.getParentEpic().getId());
+        }
+        LocalDateTime startTime = task.getStartTime();
+        writeVarLong(out, startTime == null ? 0 : zigzag(toEpochMinute(startTime)) + 1);
+        Duration duration = task.getDuration();
+        writeVarLong(out, duration == null ? 0 : duration.toMinutes() + 1);
+    }
+
+    static void readTask(Source in, TaskSink sink) throws IOException {
+        TaskType type = code(TYPES, in.readUnsignedByte(), "тип задачи");
+        int id = (int) readVarLong(in);
+        String name = readString(in);
+        String description = readString(in);
+        if (type == TaskType.EPIC) {
+            sink.accept(id, type, name, description, Status.NEW, Task.NO_ID, null, null);
+            return;
+        }
+        Status status = code(STATUSES, in.readUnsignedByte(), "статус");
+        int parentEpicId = type == TaskType.SUBTASK ? (int) readVarLong(in) : Task.NO_ID;
+        long start = readVarLong(in);
+        LocalDateTime startTime = start == 0 ? null : fromEpochMinute(unzigzag(start - 1));
+        long minutes = readVarLong(in);
+        Duration duration = minutes == 0 ? null : Duration.ofMinutes(minutes - 1);
+        sink.accept(id, type, name, description, status, parentEpicId, startTime, duration);
+    }
+
+    private static <T> T code(T[] values, int code, String what) throws IOException {
+        if (code >= values.length) {
+            throw new IOException("Неизвестный код (" + what + "): " + code);
+        }
+        return values[code];
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    // zigzag: небольшие по модулю отрицательные числа тоже занимают мало байт
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeString(SnapshotOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(Source in) throws IOException {
+        long length = readVarLong(in);
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Недопустимая длина строки: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // varint: по 7 бит в байте, старший бит - "дальше есть ещё байт"
+    private static void writeVarLong(SnapshotOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(Source in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();  // EOFException (или IndexOutOfBounds для файла в памяти), если файл обрезан
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Слишком длинное число varint");
+    }
+
+    /**
+     * Буфер записи снимка. DataOutputStream поверх BufferedOutputStream проходит по цепочке потоков
+     * (и блокировке BufferedOutputStream) на каждый байт varint; здесь байты копятся в массиве
+     * и уходят в поток кусками. Заодно считает позицию - смещения записей для индекса.
+     */
+    private static final class SnapshotOutput implements Closeable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private int length;
+        private long flushed;
+
+        SnapshotOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        long position() {
+            return flushed + length;
+        }
+
+        void writeByte(int value) throws IOException {
+            if (length == buffer.length) {
+                flushBuffer();
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - length) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    flushed += bytes.length;
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        void writeInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        void writeLong(long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, length);
+            flushed += length;
+            length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                flushBuffer();
+            }
+        }
+    }
+
+    // Индекс снимка: собирается по ходу записи задач, пишется после них
+    private static final class IndexBuilder {
+        private final int[] ids;
+        private final long[] offsets;
+        private final byte[] types;
+        private final int[] parentIds;
+        private int size;
+
+        IndexBuilder(int capacity) {
+            ids = new int[capacity];
+            offsets = new long[capacity];
+            types = new byte[capacity];
+            parentIds = new int[capacity];
+        }
+
+        void add(Task task, long offset) {
+            ids[size] = task.getId();
+            offsets[size] = offset;
+            types[size] = (byte) task.getTaskType().ordinal();
+            parentIds[size] = task instanceof Subtask subtask ? subtask.getParentEpic().getId() : Task.NO_ID;
+            size++;
+        }
+
+        void write(SnapshotOutput out) throws IOException {
+            // порядок по id: ключ - id в старших 32 битах, номер записи в младших
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (long) ids[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            int[] sortedIds = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedIds[i] = (int) (order[i] >>> 32);
+            }
+            // подзадачи эпиков: сначала число подзадач у каждого эпика, потом сами номера
+            int[] parentPositions = new int[size];
+            int[] subtaskStart = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                int record = (int) order[i];
+                parentPositions[i] = -1;
+                if (types[record] == TaskType.SUBTASK.ordinal()) {
+                    int parent = Arrays.binarySearch(sortedIds, parentIds[record]);
+                    if (parent < 0) {
+                        throw new IOException("Эпик " + parentIds[record] + " подзадачи " + ids[record]
+                                + " не попал в снимок");
+                    }
+                    parentPositions[i] = parent;
+                    subtaskStart[parent + 1]++;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                subtaskStart[i + 1] += subtaskStart[i];
+            }
+            int[] subtasks = new int[subtaskStart[size]];
+            int[] filled = Arrays.copyOf(subtaskStart, size);
+            for (int i = 0; i < size; i++) {
+                if (parentPositions[i] >= 0) {
+                    subtasks[filled[parentPositions[i]]++] = i;
+                }
+            }
+
+            out.writeInt(size);
+            for (int id : sortedIds) {
+                out.writeInt(id);
+            }
+            for (long key : order) {
+                out.writeLong(offsets[(int) key]);
+            }
+            for (long key : order) {
+                out.writeByte(types[(int) key]);
+            }
+            for (int start : subtaskStart) {
+                out.writeInt(start);
+            }
+            for (int subtask : subtasks) {
+                out.writeInt(subtask);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.service.snapshot;
+
+import java.time.Duration;
+
+/**
+ * Когда сбрасывать записанный файл на диск (fsync).
+ * <p>
+ * Снимок всегда пишется во временный файл и атомарно переименовывается, поэтому падение процесса
+ * посреди записи не портит прежний снимок при любой политике. fsync защищает от сбоя питания или ОС:
+ * без него последние записи могут остаться только в кэше ОС и пропасть.
+ * <ul>
+ * <li>ALWAYS - каждая запись сбрасывается на диск: надёжно, но каждая запись ждёт диск;</li>
+ * <li>every(interval) - не чаще раза в interval: запись, после которой на диске остались
+ * несброшенные данные, откладывает сброс фоновым таймером на конец интервала, так что при сбое
+ * питания теряются изменения не старше interval, даже если записей больше не было;</li>
+ * <li>NEVER - сброс остаётся на усмотрение ОС (по умолчанию, как раньше).</li>
+ * </ul>
+ */
+public final class FsyncPolicy {
+    public static final FsyncPolicy ALWAYS = new FsyncPolicy(0);
+    public static final FsyncPolicy NEVER = new FsyncPolicy(-1);
+
+    private final long intervalMillis;  // 0 - каждый раз, -1 - никогда
+
+    private FsyncPolicy(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static FsyncPolicy every(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Интервал сброса на диск должен быть больше 0");
+        }
+        return new FsyncPolicy(interval.toMillis());
+    }
+
+    // Нужен ли сброс сейчас, если последний был в lastSyncMillis
+    public boolean isDue(long lastSyncMillis, long nowMillis) {
+        if (intervalMillis < 0) {
+            return false;
+        }
+        return nowMillis - lastSyncMillis >= intervalMillis;
+    }
+
+    // Сброс откладывается на конец интервала, а не делается при записи и не отдаётся ОС
+    public boolean isPeriodic() {
+        return intervalMillis > 0;
+    }
+
+    // Через сколько миллисекунд после nowMillis наступит срок сброса (0 - уже наступил)
+    public long millisUntilDue(long lastSyncMillis, long nowMillis) {
+        return Math.max(0, lastSyncMillis + intervalMillis - nowMillis);
+    }
+
+    @Override
+    public String toString() {
+        if (intervalMillis == 0) {
+            return "ALWAYS";
+        }
+        return intervalMillis < 0 ? "NEVER" : "every " + intervalMillis + " ms";
+    }
+}
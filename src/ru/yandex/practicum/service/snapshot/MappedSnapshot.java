@@ -0,0 +1,192 @@
+package ru.yandex.practicum.service.snapshot;
+
+import ru.yandex.practicum.entity.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Двоичный снимок с индексом, отображённый в память (mmap): отдельные задачи читаются
+ * по номеру в индексе без разбора остального файла.
+ * <p>
+ * В куче хранится только индекс (id, смещение и тип записи, подзадачи эпиков - около 21 байта
+ * на задачу); названия и описания читаются из файла при обращении, страницы файла подгружает ОС.
+ * Номер задачи в индексе (position) - её место в порядке возрастания id.
+ * <p>
+ * Файл отображается кусками по REGION_SIZE байт, каждый кусок захватывает ещё REGION_OVERLAP байт
+ * следующего: запись короче REGION_OVERLAP целиком лежит в куске, где она начинается,
+ * поэтому снимок может быть больше 2 ГБ (предел одного MappedByteBuffer).
+ * <p>
+ * Пока снимок открыт, файл нельзя переписывать: обращение к отображённой странице
+ * обрезанного файла завершится ошибкой.
+ */
+public final class MappedSnapshot {
+    static final int REGION_SIZE = 1 << 30;
+    // больше самой длинной записи: две строки по MAX_STRING_BYTES и несколько чисел
+    static final int REGION_OVERLAP = 4 * BinarySnapshot.MAX_STRING_BYTES;
+    private static final int FOOTER_BYTES = Long.BYTES;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final String header;
+    private final int[] ids;
+    private final long[] offsets;
+    private final byte[] types;
+    private final int[] subtaskStart;
+    private final int[] subtasks;
+    private final int[] countByType = new int[TYPES.length];
+    private final MappedByteBuffer[] regions;
+    private final int regionSize;
+
+    private MappedSnapshot(String header, int[] ids, long[] offsets, byte[] types, int[] subtaskStart,
+                           int[] subtasks, MappedByteBuffer[] regions, int regionSize) {
+        this.header = header;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.types = types;
+        this.subtaskStart = subtaskStart;
+        this.subtasks = subtasks;
+        this.regions = regions;
+        this.regionSize = regionSize;
+        for (byte type : types) {
+            countByType[type]++;
+        }
+    }
+
+    public static MappedSnapshot open(Path path) throws IOException {
+        return open(path, REGION_SIZE);
+    }
+
+    // размер куска уменьшается в тестах, чтобы проверить чтение из нескольких кусков
+    static MappedSnapshot open(Path path, int regionSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer start = ByteBuffer.allocate(BinarySnapshot.MAGIC.length + 1);
+            channel.read(start, 0);
+            if (fileSize < start.capacity() + FOOTER_BYTES
+                    || !Arrays.equals(Arrays.copyOf(start.array(), BinarySnapshot.MAGIC.length), BinarySnapshot.MAGIC)
+                    || start.get(BinarySnapshot.MAGIC.length) < BinarySnapshot.VERSION) {
+                throw new IOException("Файл " + path + " не является двоичным снимком с индексом");
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            channel.read(footer, fileSize - FOOTER_BYTES);
+            long indexOffset = footer.getLong(0);
+            long indexLength = fileSize - FOOTER_BYTES - indexOffset;
+            if (indexOffset <= 0 || indexLength <= 0 || indexLength > Integer.MAX_VALUE) {
+                throw new IOException("Повреждён индекс снимка " + path);
+            }
+
+            // отображение остаётся действительным и после закрытия канала
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((indexOffset + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long regionStart = (long) i * regionSize;
+                long length = Math.min((long) regionSize + REGION_OVERLAP, indexOffset - regionStart);
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+            }
+            String header = BinarySnapshot.readHeader(new Cursor(regions[0], 0));
+
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexLength);
+            int size = index.getInt();
+            if ((long) size * (Integer.BYTES + Long.BYTES + 1 + Integer.BYTES) > indexLength) {
+                throw new IOException("Повреждён индекс снимка " + path);
+            }
+            int[] ids = new int[size];
+            index.asIntBuffer().get(ids);
+            index.position(index.position() + size * Integer.BYTES);
+            long[] offsets = new long[size];
+            index.asLongBuffer().get(offsets);
+            index.position(index.position() + size * Long.BYTES);
+            byte[] types = new byte[size];
+            index.get(types);
+            int[] subtaskStart = new int[size + 1];
+            index.asIntBuffer().get(subtaskStart);
+            index.position(index.position() + subtaskStart.length * Integer.BYTES);
+            int[] subtasks = new int[subtaskStart[size]];
+            index.asIntBuffer().get(subtasks);
+            return new MappedSnapshot(header, ids, offsets, types, subtaskStart, subtasks, regions, regionSize);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, NegativeArraySizeException и т.п. - индекс не совпадает с файлом
+            throw new IOException("Повреждён индекс снимка " + path, e);
+        }
+    }
+
+    // Первая строка снимка: lastId=..., journalSeq=...
+    public String getHeader() {
+        return header;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int count(TaskType type) {
+        return countByType[type.ordinal()];
+    }
+
+    // Номер задачи с данным id в индексе, отрицательный, если такой задачи нет
+    public int position(int id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    // Номер первой задачи с id больше afterId (size(), если таких нет)
+    public int positionAfter(int afterId) {
+        int position = Arrays.binarySearch(ids, afterId);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    public int idAt(int position) {
+        return ids[position];
+    }
+
+    public TaskType typeAt(int position) {
+        return TYPES[types[position]];
+    }
+
+    public int subtaskCount(int epicPosition) {
+        return subtaskStart[epicPosition + 1] - subtaskStart[epicPosition];
+    }
+
+    // Номер i-й подзадачи эпика в индексе
+    public int subtaskAt(int epicPosition, int i) {
+        return subtasks[subtaskStart[epicPosition] + i];
+    }
+
+    /**
+     * Читает запись задачи с номером position и отдаёт её в sink.
+     */
+    public void read(int position, BinarySnapshot.TaskSink sink) throws IOException {
+        long offset = offsets[position];
+        Cursor cursor = new Cursor(regions[(int) (offset / regionSize)], (int) (offset % regionSize));
+        try {
+            BinarySnapshot.readTask(cursor, sink);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Запись задачи " + ids[position] + " выходит за границы снимка", e);
+        }
+    }
+
+    // Чтение записи по абсолютным позициям: сам буфер не меняется, поэтому общий для всех читателей
+    private static final class Cursor implements BinarySnapshot.Source {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Cursor(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        @Override
+        public int readUnsignedByte() {
+            return buffer.get(position++) & 0xFF;
+        }
+
+        @Override
+        public void readFully(byte[] bytes) {
+            buffer.get(position, bytes);
+            position += bytes.length;
+        }
+    }
+}
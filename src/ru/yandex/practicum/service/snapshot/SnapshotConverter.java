@@ -0,0 +1,43 @@
+package ru.yandex.practicum.service.snapshot;
+
+import ru.yandex.practicum.service.FileBackedTaskManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Перевод снимка доски между форматами CSV и BINARY.
+ * <p>
+ * Исходный формат определяется по содержимому файла. Снимок загружается целиком, с теми же
+ * проверками, что и при обычной загрузке, поэтому повреждённый файл не будет переписан молча.
+ * Если рядом со снимком лежит журнал JournaledTaskManager, его нужно сначала свернуть (compact),
+ * иначе изменения из журнала не попадут в новый снимок.
+ * <pre>
+ * java ru.yandex.practicum.service.snapshot.SnapshotConverter tasks.csv tasks.bin binary
+ * </pre>
+ */
+public final class SnapshotConverter {
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private SnapshotConverter() {
+    }
+
+    public static void convert(Path source, Path target, SnapshotFormat targetFormat) {
+        if (Files.exists(Path.of(source + JOURNAL_SUFFIX))) {
+            throw new IllegalStateException("У снимка " + source + " есть несвёрнутый журнал");
+        }
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(source.toFile());
+        manager.exportTo(target, targetFormat);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Использование: SnapshotConverter <исходный файл> <новый файл> <csv|binary>");
+            System.exit(2);
+        }
+        SnapshotFormat format = SnapshotFormat.valueOf(args[2].toUpperCase(Locale.ROOT));
+        convert(Path.of(args[0]), Path.of(args[1]), format);
+        System.out.println("Снимок " + args[0] + " записан в " + args[1] + " (" + format + ")");
+    }
+}
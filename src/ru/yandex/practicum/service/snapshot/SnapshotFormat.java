@@ -0,0 +1,12 @@
+package ru.yandex.practicum.service.snapshot;
+
+/**
+ * Формат файла-снимка доски.
+ * <p>
+ * CSV - текст, по строке на задачу (Task.writeToString), удобно читать и править руками.
+ * BINARY - компактный двоичный формат {@link BinarySnapshot}: загрузка без разбора строк и дат.
+ */
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
@@ -2,6 +2,8 @@ package ru.yandex.practicum.entity;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,4 +35,48 @@ class EpicTest {
         assertFalse(epic2.subtasks.containsKey(epic1.getId()),
                 "Epic нельзя добавлять в список подзадач");
     }
+
+    @Test
+    void testEpicAggregatesFollowSubtaskChanges() {
+        Epic epic = new Epic(1, "Epic 1", "Description 1");
+        LocalDateTime start = LocalDateTime.of(2025, 5, 14, 9, 0);
+
+        new Subtask(2, "Subtask 2", "Desc", Status.NEW, epic, start, Duration.ofMinutes(30));
+        Subtask second = new Subtask(3, "Subtask 3", "Desc", Status.DONE, epic,
+                start.plusHours(2), Duration.ofMinutes(60));
+
+        assertEquals(start, epic.getStartTime(), "Начало эпика - самое раннее начало подзадач");
+        assertEquals(start.plusHours(3), epic.getEndTime(), "Конец эпика - самый поздний конец подзадач");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Длительность эпика - сумма длительностей");
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Смесь NEW и DONE - эпик IN_PROGRESS");
+
+        // обновление подзадачи заменяет её вклад в агрегаты
+        new Subtask(2, "Subtask 2", "Desc", Status.DONE, epic, start.plusHours(1), Duration.ofMinutes(15));
+        assertEquals(start.plusHours(1), epic.getStartTime(), "Начало должно пересчитаться после обновления");
+        assertEquals(Duration.ofMinutes(75), epic.getDuration(), "Длительность должна пересчитаться");
+        assertEquals(Status.DONE, epic.getStatus(), "Все подзадачи DONE - эпик DONE");
+
+        epic.deleteSubtask(second);
+        assertEquals(start.plusHours(1).plusMinutes(15), epic.getEndTime(), "Конец должен пересчитаться после удаления");
+
+        epic.clearSubtasks();
+        assertNull(epic.getStartTime(), "У эпика без подзадач нет начала");
+        assertNull(epic.getEndTime(), "У эпика без подзадач нет конца");
+        assertEquals(Duration.ZERO, epic.getDuration(), "У эпика без подзадач нулевая длительность");
+    }
+
+    @Test
+    void testUpdatedEpicSharesSubtaskAggregates() {
+        Epic epic = new Epic(1, "Epic 1", "Description 1");
+        LocalDateTime start = LocalDateTime.of(2025, 5, 14, 9, 0);
+        new Subtask(2, "Subtask 2", "Desc", Status.NEW, epic, start, Duration.ofMinutes(30));
+
+        Epic updated = new Epic(1, "Epic 1 updated", "Description 1", epic);
+        // подзадача по-прежнему ссылается на старую версию эпика
+        new Subtask(3, "Subtask 3", "Desc", Status.NEW, epic, start.minusHours(1), Duration.ofMinutes(30));
+
+        assertEquals(start.minusHours(1), updated.getStartTime(),
+                "Новая версия эпика должна видеть подзадачи, добавленные через старую");
+        assertEquals(Duration.ofMinutes(60), updated.getDuration());
+    }
 }
@@ -2,8 +2,10 @@ package ru.yandex.practicum.entity;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class TaskTest {
     @Test
@@ -17,4 +19,27 @@ class TaskTest {
         Task task3 = new Task(2, "Task 3", "", null, null);
         assertNotEquals(task1, task3, "Задачи с разными id не должны быть равны");
     }
+
+    @Test
+    void testOverlapsInTimeWithWholeAndPartialMinutes() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 14, 10, 0);
+        Task task = new Task(1, "Task 1", "", Status.NEW, start, Duration.ofMinutes(30));
+        assertEquals(start.plusMinutes(30), task.getEndTime());
+        assertEquals(task.getEndTime(), task.copy().getEndTime(), "Копия должна сохранить конец задачи");
+
+        Task touching = new Task(2, "Task 2", "", Status.NEW, start.plusMinutes(30), Duration.ofMinutes(10));
+        Task crossing = new Task(3, "Task 3", "", Status.NEW, start.plusMinutes(29), Duration.ofMinutes(10));
+        assertFalse(task.overlapsInTime(touching), "Задачи встык не пересекаются");
+        assertTrue(task.overlapsInTime(crossing));
+        assertTrue(crossing.overlapsInTime(task));
+
+        // секунды не теряются: сравнение идёт по точному концу, а не по минутам
+        Task secondEarly = new Task(4, "Task 4", "", Status.NEW, start.plusMinutes(29).plusSeconds(59),
+                Duration.ofSeconds(1));
+        Task secondLate = new Task(5, "Task 5", "", Status.NEW, start.plusSeconds(-30), Duration.ofSeconds(30));
+        assertTrue(task.overlapsInTime(secondEarly));
+        assertFalse(task.overlapsInTime(secondLate), "Задача до начала в пределах той же минуты не пересекается");
+        assertTrue(secondEarly.endsAfterStartOf(task));
+        assertFalse(secondEarly.endsAfterStartOf(touching));
+    }
 }
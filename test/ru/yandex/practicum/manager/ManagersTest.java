@@ -2,6 +2,8 @@ package ru.yandex.practicum.manager;
 
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.service.ConcurrentHistoryManager;
+import ru.yandex.practicum.service.ConcurrentTaskManager;
 import ru.yandex.practicum.service.HistoryManager;
 import ru.yandex.practicum.service.InMemoryHistoryManager;
 import ru.yandex.practicum.service.InMemoryTaskManager;
@@ -52,4 +54,14 @@ class ManagersTest {
         assertEquals(1, history.size(), "История должна содержать 1 задачу");
         assertEquals(task.getName(), history.get(0).getName(), "Имена задач должны совпадать");
     }
+
+    @Test
+    public void testGetConcurrentTaskManager() {
+        TaskManager taskManager = Managers.getConcurrent();
+
+        assertInstanceOf(ConcurrentTaskManager.class, taskManager,
+                "Должен возвращаться ConcurrentTaskManager");
+        assertInstanceOf(ConcurrentHistoryManager.class, taskManager.getHistoryManager(),
+                "У многопоточного менеджера - потокобезопасная история");
+    }
 }
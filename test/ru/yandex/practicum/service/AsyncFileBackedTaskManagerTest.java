@@ -0,0 +1,138 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskDto;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncFileBackedTaskManagerTest extends TaskManagerTest<AsyncFileBackedTaskManager> {
+
+    @Override
+    protected AsyncFileBackedTaskManager createTaskManager() {
+        AsyncFileBackedTaskManager manager = new AsyncFileBackedTaskManager(createTempFile());
+        manager.start();
+        return manager;
+    }
+
+    @Test
+    void shouldAcknowledgeBeforeWriteAndApplyBackPressure() throws Exception {
+        Path file = Files.createTempFile("tasks", ".csv");
+        try (GatedAsyncTaskManager manager = new GatedAsyncTaskManager(file, 2)) {
+            manager.start();
+            TaskManager synchronizedManager = SynchronizedTaskManager.of(manager);
+
+            // запись первой задачи остановлена на воротах, но изменения подтверждаются без неё
+            synchronizedManager.addTask(new Task("Task 1", "Description"));
+            synchronizedManager.addTask(new Task("Task 2", "Description"));
+            assertEquals(2, manager.getPendingChanges());
+
+            CompletableFuture<Void> third = CompletableFuture.runAsync(
+                    () -> synchronizedManager.addTask(new Task("Task 3", "Description")));
+            assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS),
+                    "Отставание больше maxLag - клиент ждёт поток записи");
+            assertEquals(3, manager.getAllTasks().size(), "Изменение уже применено в памяти");
+
+            manager.gate.countDown();
+            third.get(5, TimeUnit.SECONDS);
+            manager.flush();
+            assertEquals(0, manager.getPendingChanges());
+            assertEquals(3, savedTaskCount(file));
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldFlushPendingChangesWhenServerStops() throws Exception {
+        assertServerFlushesOnStop(false);
+    }
+
+    @Test
+    void shouldFlushPendingChangesOfWrappedManagerWhenServerStops() throws Exception {
+        // сервер получает уже обёрнутый менеджер: flush должен дойти до него через обёртку
+        assertServerFlushesOnStop(true);
+    }
+
+    @Test
+    void shouldFlushNotStartedManagerWhenServerStops() throws Exception {
+        Path file = Files.createTempFile("tasks", ".csv");
+        AsyncFileBackedTaskManager manager = new AsyncFileBackedTaskManager(file);
+        manager.addTask(new Task("Task 1", "Description"));
+        HttpTaskServer server = new HttpTaskServer(manager, 8080);
+        server.start();
+        server.stop();
+
+        assertEquals(1, savedTaskCount(file), "Поток записи не запущен - изменения пишет сам flush");
+        manager.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void assertServerFlushesOnStop(boolean wrapped) throws Exception {
+        Path file = Files.createTempFile("tasks", ".csv");
+        GatedAsyncTaskManager manager = new GatedAsyncTaskManager(file, 100);
+        manager.start();
+        HttpTaskServer server = new HttpTaskServer(wrapped ? SynchronizedTaskManager.of(manager) : manager, 8080);
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            for (int i = 1; i <= 3; i++) {
+                TaskDto taskDto = new TaskDto(0, "Task " + i, "Description", "NEW", null, null, null);
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(server.getGson().toJson(taskDto)))
+                        .build();
+                assertEquals(201, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                        "Ответ не ждёт записи в файл");
+            }
+            assertEquals(0, Files.size(file), "Запись ещё не выполнена");
+        } finally {
+            manager.gate.countDown();
+            server.stop();
+        }
+
+        assertEquals(0, manager.getPendingChanges());
+        assertEquals(3, savedTaskCount(file), "При остановке сервера изменения дописываются");
+        manager.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldRejectNonPositiveMaxLag() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncFileBackedTaskManager(Path.of("tasks.csv"),
+                SnapshotFormat.CSV, FsyncPolicy.NEVER, 0));
+    }
+
+    // Запись файла ждёт, пока тест не откроет ворота
+    private static class GatedAsyncTaskManager extends AsyncFileBackedTaskManager {
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        GatedAsyncTaskManager(Path path, int maxLag) {
+            super(path, SnapshotFormat.CSV, FsyncPolicy.NEVER, maxLag);
+        }
+
+        @Override
+        protected OutputStream snapshotStream(OutputStream out) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return out;
+        }
+    }
+}
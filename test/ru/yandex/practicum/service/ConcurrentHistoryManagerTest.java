@@ -0,0 +1,90 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.service.TestTasks.task;
+
+class ConcurrentHistoryManagerTest {
+
+    @Test
+    void shouldKeepViewOrderWithoutDuplicates() {
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(2);
+        Task first = task(1);
+        Task second = task(2);
+        Task third = task(3);
+
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(first);
+        assertEquals(List.of(second, first), historyManager.getHistory(), "Повторный просмотр переносит в конец");
+
+        historyManager.add(third);
+        assertEquals(List.of(first, third), historyManager.getHistory(), "Вытесняется самая давняя задача");
+
+        historyManager.remove(first.getId());
+        assertEquals(List.of(third), historyManager.getHistory());
+
+        historyManager.clear();
+        assertTrue(historyManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldStayConsistentUnderParallelViews() throws Exception {
+        int threads = 8;
+        int viewsPerThread = 5_000;
+        int distinctTasks = 200;
+        int capacity = 100;
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(capacity);
+        Task[] tasks = new Task[distinctTasks];
+        for (int i = 0; i < distinctTasks; i++) {
+            tasks[i] = task(i + 1);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        historyManager.add(tasks[random.nextInt(distinctTasks)]);
+                    }
+                    return null;
+                }));
+            }
+            // читатель проверяет снимки, пока идут просмотры
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    List<Task> history = historyManager.getHistory();
+                    assertEquals(history.size(), new HashSet<>(history).size(), "В снимке не должно быть повторов");
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(capacity, history.size(), "После всех просмотров история заполнена до ёмкости");
+        assertEquals(capacity, historyManager.size(), "Индекс id совпадает со снимком");
+        assertEquals(capacity, new HashSet<>(history).size(), "В истории нет повторов");
+    }
+}
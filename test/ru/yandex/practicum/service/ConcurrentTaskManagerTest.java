@@ -0,0 +1,160 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.*;
+import ru.yandex.practicum.exceptions.TimeConflictException;
+import ru.yandex.practicum.exceptions.WrongParentEpicException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Запускает действие одновременно в нескольких потоках и ждёт их завершения
+    private void runConcurrently(IntConsumerWithException action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int threadNumber = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                action.accept(threadNumber);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerWithException {
+        void accept(int value) throws Exception;
+    }
+
+    @Test
+    void concurrentAddsShouldNotLoseTasksOrCreatePhantomOverlaps() throws Exception {
+        LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < 500; i++) {
+                // задачи по 45 минут в общем окне ~100 часов - много конфликтов между потоками
+                Task task = new Task("Task", "Desc",
+                        baseTime.plusMinutes(random.nextInt(6000)), Duration.ofMinutes(45));
+                try {
+                    taskManager.addTask(task);
+                    added.incrementAndGet();
+                } catch (TimeConflictException e) {
+                    // ожидаемо: слот уже занят другой задачей
+                }
+            }
+        });
+
+        assertEquals(added.get(), taskManager.getAllTasks().size(), "Ни одна добавленная задача не должна потеряться");
+        assertEquals(added.get(), taskManager.getPrioritizedTasks().size(),
+                "Все добавленные задачи должны быть в расписании");
+
+        Task previous = null;
+        for (Task task : taskManager.getPrioritizedTasks()) {
+            if (previous != null) {
+                assertFalse(previous.getEndTime().isAfter(task.getStartTime()),
+                        "Задачи в расписании не должны пересекаться");
+            }
+            previous = task;
+        }
+    }
+
+    @Test
+    void concurrentSubtaskChangesShouldKeepEpicConsistent() throws Exception {
+        Epic epic = assertInstanceOf(Epic.class,
+                taskManager.createTask(TaskType.EPIC, "Epic", "Desc", null, null, null));
+
+        runConcurrently(thread -> {
+            List<Task> created = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                created.add(taskManager.createTask(TaskType.SUBTASK, "Subtask", "Desc", epic, null, null));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertTrue(taskManager.deleteTask(created.get(i)), "Подзадача должна удаляться");
+            }
+            for (int i = 100; i < 200; i++) {
+                Task subtask = created.get(i);
+                taskManager.updateTask(TaskType.SUBTASK, subtask.getId(), "Subtask", "Desc",
+                        Status.DONE, null, null);
+            }
+        });
+
+        int expected = THREADS * 100;
+        assertEquals(expected, taskManager.getAllTasksByType(TaskType.SUBTASK).size(),
+                "В менеджере должны остаться неудалённые подзадачи");
+        assertEquals(expected, epic.getSubtasks().size(), "Эпик должен содержать те же подзадачи");
+        assertEquals(Status.DONE, epic.getStatus(), "Все подзадачи DONE - эпик DONE");
+    }
+
+    @Test
+    void subtaskShouldNotOutliveEpicDeletedConcurrently() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            epics.add(assertInstanceOf(Epic.class,
+                    taskManager.createTask(TaskType.EPIC, "Epic", "Desc", null, null, null)));
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < epics.size(); i++) {
+                // чётные потоки удаляют эпики, нечётные добавляют в них подзадачи
+                Epic epic = epics.get((i + thread * 25) % epics.size());
+                if (thread % 2 == 0) {
+                    taskManager.deleteTask(epic);
+                    continue;
+                }
+                try {
+                    taskManager.createTask(TaskType.SUBTASK, "Subtask", "Desc", epic, null, null);
+                } catch (WrongParentEpicException e) {
+                    // ожидаемо: эпик уже удалён
+                }
+            }
+        });
+
+        assertTrue(taskManager.getAllTasksByType(TaskType.EPIC).isEmpty(), "Все эпики удалены");
+        assertTrue(taskManager.getAllTasksByType(TaskType.SUBTASK).isEmpty(),
+                "Подзадача удалённого эпика не должна остаться в менеджере");
+    }
+
+    @Test
+    void getPrioritizedTasksShouldBeSafeToIterateDuringWrites() throws Exception {
+        LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 300; i++) {
+                if (thread % 2 == 0) {
+                    Task task = new Task("Task", "Desc",
+                            baseTime.plusHours(thread * 1000L + i), Duration.ofMinutes(30));
+                    taskManager.addTask(task);
+                    taskManager.deleteTask(task);
+                } else {
+                    assertDoesNotThrow(() -> taskManager.getPrioritizedTasks().forEach(Task::getEndTime),
+                            "Обход расписания не должен падать при параллельной записи");
+                }
+            }
+        });
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Все задачи были удалены");
+    }
+}
@@ -2,14 +2,30 @@ package ru.yandex.practicum.service;
 
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
 import ru.yandex.practicum.entity.Subtask;
 import ru.yandex.practicum.entity.Task;
-
+import ru.yandex.practicum.entity.TaskEventType;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.exceptions.ManagerSaveException;
+import ru.yandex.practicum.service.snapshot.AtomicFileWriter;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotConverter;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -100,6 +116,18 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Files.deleteIfExists(testFile);
     }
 
+    @Test
+    void shouldNotPublishEventsForLoadedTasks() throws IOException {
+        testFile = createTestFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(testFile.toFile());
+        TaskEventLog eventLog = manager.getEventLog();
+
+        assertTrue(eventLog.since(eventLog.lastSeq(), 10).isEmpty(), "Загрузка - не изменение доски");
+        manager.deleteTask(manager.getTaskById(2).orElseThrow());
+        assertEquals(TaskEventType.DELETED, eventLog.since(eventLog.lastSeq() - 1, 10).getFirst().getType());
+        Files.deleteIfExists(testFile);
+    }
+
     @Test
     void shouldLoadMultipleTasksFromFile() throws IOException {
         testFile = createTestFile();
@@ -141,6 +169,23 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Files.deleteIfExists(testFile);
     }
 
+    @Test
+    void shouldNotReuseIdsOfDeletedTasksAfterReload() throws IOException {
+        Path tempFile = createEmptyTestFile();
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.addTask(new Task("Task 1", "Description"));
+        Task lastTask = new Task("Task 2", "Description");
+        manager.addTask(lastTask);
+        manager.deleteTask(lastTask);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+        Task newTask = new Task("Task 3", "Description");
+        loaded.addTask(newTask);
+
+        assertEquals(3, newTask.getId(), "id удалённой задачи не должен выдаваться повторно");
+        Files.deleteIfExists(tempFile);
+    }
+
     @Test
     public void testLoadFromFileWithInvalidData() throws IOException {
         Path wrongTestFile = Files.createTempFile("tasks_invalid", ".csv");
@@ -170,4 +215,270 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         );
         Files.deleteIfExists(wrongTestFile);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSaveAndLoadBinarySnapshot() throws IOException {
+        Path tempFile = createEmptyTestFile();
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, SnapshotFormat.BINARY);
+        Epic epic = new Epic("Эпик, с запятой", "");
+        manager.addTask(epic);
+        Subtask subtask = new Subtask("Subtask 1", "Description", epic,
+                LocalDateTime.of(1969, 12, 31, 23, 30), Duration.ofMinutes(45));
+        manager.addTask(subtask);
+        manager.updateTask(TaskType.SUBTASK, subtask.getId(), "Subtask 1", "Description",
+                Status.DONE, subtask.getStartTime(), subtask.getDuration());
+        Task task = new Task("Task 2", "Без времени");
+        manager.addTask(task);
+        Task deleted = new Task("Task 3", "Description");
+        manager.addTask(deleted);
+        manager.deleteTask(deleted);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+
+        assertEquals(SnapshotFormat.BINARY, loaded.getFormat(), "Формат определяется по содержимому файла");
+        assertEquals(3, loaded.getAllTasks().size());
+        Epic loadedEpic = assertInstanceOf(Epic.class, loaded.getTaskById(epic.getId()).orElseThrow());
+        assertEquals("Эпик, с запятой", loadedEpic.getName(), "Запятые в строках не ломают формат");
+        assertEquals(Status.DONE, loadedEpic.getStatus(), "Статус эпика пересчитывается по подзадачам");
+        Task loadedSubtask = loaded.getTaskById(subtask.getId()).orElseThrow();
+        assertEquals(subtask.getStartTime(), loadedSubtask.getStartTime(), "Время до 1970 года тоже сохраняется");
+        assertEquals(subtask.getDuration(), loadedSubtask.getDuration());
+        assertNull(loaded.getTaskById(task.getId()).orElseThrow().getStartTime());
+
+        Task newTask = new Task("Task 4", "Description");
+        loaded.addTask(newTask);
+        assertEquals(5, newTask.getId(), "lastId хранится в заголовке двоичного снимка");
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void shouldConvertSnapshotBetweenFormats() throws IOException {
+        Path csvFile = createTestFile();
+        Path binaryFile = Files.createTempFile("tasks", ".bin");
+        Path csvCopy = Files.createTempFile("tasks", ".csv");
+
+        SnapshotConverter.convert(csvFile, binaryFile, SnapshotFormat.BINARY);
+        SnapshotConverter.convert(binaryFile, csvCopy, SnapshotFormat.CSV);
+
+        FileBackedTaskManager fromBinary = FileBackedTaskManager.loadFromFile(binaryFile.toFile());
+        assertEquals(SnapshotFormat.BINARY, fromBinary.getFormat());
+        assertEquals(3, fromBinary.getAllTasks().size());
+        FileBackedTaskManager.loadFromFile(csvFile.toFile()).save();  // строки в том виде, как их пишет менеджер
+        assertEquals(Files.readAllLines(csvFile).stream().sorted().toList(),
+                Files.readAllLines(csvCopy).stream().sorted().toList(),
+                "После двух преобразований задачи те же");
+
+        // двоичный файл, обрезанный посреди записей, не загружается (последние 8 байт - смещение индекса)
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        long indexOffset = ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong();
+        Files.write(binaryFile, Arrays.copyOf(bytes, (int) indexOffset - 3));
+        assertThrows(RuntimeException.class, () -> FileBackedTaskManager.loadFromFile(binaryFile.toFile()));
+
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(csvCopy);
+    }
+
+    // Менеджер, у которого запись снимка обрывается после failAfterBytes байт
+    @Test
+    void shouldLoadSnapshotInParallelSameAsSequentially() throws IOException {
+        for (SnapshotFormat snapshotFormat : SnapshotFormat.values()) {
+            Path tempFile = createEmptyTestFile();
+            FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, snapshotFormat);
+            for (int i = 0; i < 50; i++) {
+                Epic epic = new Epic("Epic " + i, "Description");
+                manager.addTask(epic);
+                manager.addTask(new Subtask("Subtask " + i, "Description", epic,
+                        LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i), Duration.ofMinutes(30)));
+                manager.addTask(new Task("Task " + i, "Description",
+                        LocalDateTime.of(2025, 2, 1, 0, 0).plusHours(i), Duration.ofMinutes(30)));
+            }
+            Task deleted = new Task("Deleted", "Description");
+            manager.addTask(deleted);
+            manager.deleteTask(deleted);
+
+            FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile.toFile(), 1);
+            FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(tempFile.toFile(), 4);
+
+            assertEquals(sequential.getAllTasks().keySet(), parallel.getAllTasks().keySet(), snapshotFormat.name());
+            assertEquals(sequential.getAllTasksByType(TaskType.SUBTASK).keySet(),
+                    parallel.getAllTasksByType(TaskType.SUBTASK).keySet());
+            assertEquals(List.copyOf(sequential.getPrioritizedTasks()), List.copyOf(parallel.getPrioritizedTasks()));
+            Epic epic = assertInstanceOf(Epic.class, parallel.getTaskById(1).orElseThrow());
+            assertEquals(1, epic.getSubtasks().size(), "Подзадачи попадают в эпики");
+            assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), epic.getStartTime());
+            Task task = new Task("New", "Description");
+            parallel.addTask(task);
+            assertEquals(deleted.getId() + 1, task.getId(), "lastId читается из заголовка");
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Test
+    void shouldRejectOverlapsAndMissingEpicsWhenLoadingInParallel() throws IOException {
+        Path overlapping = Files.createTempFile("tasks_invalid", ".csv");
+        Files.write(overlapping, Arrays.asList(
+                "id,type,name,status,description,epic,startTime,duration",
+                "1,TASK,Task 1,NEW,Description,,01.01.2025 10:00,60",
+                "2,TASK,Task 2,NEW,Description,,01.01.2025 12:00,30",
+                "3,TASK,Task 3,NEW,Description,,01.01.2025 10:30,15"
+        ));
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> FileBackedTaskManager.loadFromFile(overlapping.toFile(), 4));
+        assertTrue(e.getMessage().contains("пересекается"), e.getMessage());
+
+        Path withoutEpic = Files.createTempFile("tasks_invalid", ".csv");
+        Files.write(withoutEpic, Arrays.asList(
+                "id,type,name,status,description,epic,startTime,duration",
+                "1,SUBTASK,Subtask 1,NEW,Description,7,,"
+        ));
+        assertThrows(RuntimeException.class, () -> FileBackedTaskManager.loadFromFile(withoutEpic.toFile(), 4));
+
+        Path subtaskFirst = Files.createTempFile("tasks", ".csv");
+        Files.write(subtaskFirst, Arrays.asList(
+                "id,type,name,status,description,epic,startTime,duration",
+                "2,SUBTASK,Subtask 2,DONE,Description,1,,",
+                "1,EPIC,Epic 1,NEW,Description,,,"
+        ));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(subtaskFirst.toFile(), 4);
+        assertEquals(Status.DONE, loaded.getTaskById(1).orElseThrow().getStatus(),
+                "Подзадача может стоять в файле раньше эпика");
+        Files.deleteIfExists(overlapping);
+        Files.deleteIfExists(withoutEpic);
+        Files.deleteIfExists(subtaskFirst);
+    }
+
+    @Test
+    void shouldSaveBatchOnceAndNothingWhenRejected() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        SaveCountingTaskManager manager = new SaveCountingTaskManager(file);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        manager.addTasks(List.of(
+                new Task("Task 1", "Description", base, Duration.ofMinutes(30)),
+                new Task("Task 2", "Description", base.plusHours(1), Duration.ofMinutes(30)),
+                new Epic("Epic 3", "Description")));
+        assertEquals(1, manager.saves, "Пачка сохраняется одной записью");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file.toFile()).getAllTasks().size());
+
+        assertThrows(RuntimeException.class, () -> manager.addTasks(List.of(
+                new Task("Task 4", "Description", base.plusHours(2), Duration.ofMinutes(30)),
+                new Task("Task 5", "Description", base.plusMinutes(15), Duration.ofMinutes(30)))));
+        assertEquals(1, manager.saves, "Отклонённая пачка не сохраняется");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file.toFile()).getAllTasks().size());
+        Files.deleteIfExists(file);
+    }
+
+    private static class SaveCountingTaskManager extends FileBackedTaskManager {
+        int saves;
+
+        SaveCountingTaskManager(Path path) {
+            super(path, SnapshotFormat.CSV, FsyncPolicy.NEVER);
+        }
+
+        @Override
+        protected OutputStream snapshotStream(OutputStream out) {
+            saves++;
+            return out;
+        }
+    }
+
+    private static class FailingFileBackedTaskManager extends FileBackedTaskManager {
+        long failAfterBytes = Long.MAX_VALUE;
+
+        FailingFileBackedTaskManager(Path path, SnapshotFormat format) {
+            super(path, format, FsyncPolicy.ALWAYS);
+        }
+
+        @Override
+        protected OutputStream snapshotStream(OutputStream out) {
+            return new FilterOutputStream(out) {
+                private long written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (++written > failAfterBytes) {
+                        throw new IOException("Диск отключён посреди записи");
+                    }
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    for (int i = 0; i < length; i++) {
+                        write(bytes[offset + i]);
+                    }
+                }
+            };
+        }
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenSaveIsInterrupted() throws IOException {
+        for (SnapshotFormat snapshotFormat : SnapshotFormat.values()) {
+            Path tempFile = createEmptyTestFile();
+            FailingFileBackedTaskManager manager = new FailingFileBackedTaskManager(tempFile, snapshotFormat);
+            Epic epic = new Epic("Epic 1", "Description");
+            manager.addTask(epic);
+            manager.addTask(new Subtask("Subtask 2", "Description", epic, null, null));
+            byte[] before = Files.readAllBytes(tempFile);
+
+            manager.failAfterBytes = before.length / 2;
+            assertThrows(ManagerSaveException.class, () -> manager.addTask(new Task("Task 3", "Description")));
+
+            assertArrayEquals(before, Files.readAllBytes(tempFile), "Оборванная запись не меняет снимок: " + snapshotFormat);
+            assertFalse(Files.exists(AtomicFileWriter.tempFileFor(tempFile)), "Временный файл удалён");
+            assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile.toFile()).getAllTasks().size());
+
+            manager.failAfterBytes = Long.MAX_VALUE;
+            manager.save();
+            assertEquals(3, FileBackedTaskManager.loadFromFile(tempFile.toFile()).getAllTasks().size(),
+                    "Следующая запись сохраняет все изменения");
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Test
+    void shouldOverwriteTempFileLeftAfterCrash() throws IOException {
+        Path tempFile = createTestFile();
+        // процесс упал посреди записи: рядом со снимком остался недописанный временный файл
+        Path leftover = AtomicFileWriter.tempFileFor(tempFile);
+        Files.writeString(leftover, "id,type,name,status,description,epic,startTime,duration\n1,Epic,Epi");
+
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(tempFile.toFile());
+        assertEquals(3, manager.getAllTasks().size(), "Загружается прежний снимок");
+        manager.addTask(new Task("Task 4", "Description"));
+
+        assertFalse(Files.exists(leftover));
+        assertEquals(4, FileBackedTaskManager.loadFromFile(tempFile.toFile()).getAllTasks().size());
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void shouldSyncAccordingToPolicy() {
+        assertTrue(FsyncPolicy.ALWAYS.isDue(1_000, 1_000));
+        assertFalse(FsyncPolicy.NEVER.isDue(0, Long.MAX_VALUE));
+        FsyncPolicy everySecond = FsyncPolicy.every(Duration.ofSeconds(1));
+        assertFalse(everySecond.isDue(1_000, 1_999), "Не чаще раза в интервал");
+        assertTrue(everySecond.isDue(1_000, 2_000));
+        assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.every(Duration.ZERO));
+    }
+
+    @Test
+    void shouldSyncLastWriteOfBurstWhenIdle() throws IOException, InterruptedException {
+        Path file = createEmptyTestFile();
+        CountDownLatch synced = new CountDownLatch(1);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, SnapshotFormat.CSV,
+                FsyncPolicy.every(Duration.ofMillis(200))) {
+            @Override
+            protected void syncPending() throws IOException {
+                super.syncPending();
+                synced.countDown();
+            }
+        };
+        manager.addTask(new Task("Task 1", "Description"));  // первая запись сбрасывается сразу
+        manager.addTask(new Task("Task 2", "Description"));  // вторая - в пределах интервала, записей больше нет
+
+        assertTrue(synced.await(5, TimeUnit.SECONDS), "Последняя запись сбрасывается таймером без новых записей");
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Subtask;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.exceptions.ManagerSaveException;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitTaskManagerTest extends TaskManagerTest<GroupCommitTaskManager> {
+
+    @Override
+    protected GroupCommitTaskManager createTaskManager() {
+        GroupCommitTaskManager manager = new GroupCommitTaskManager(createTempFile());
+        manager.start();
+        return manager;
+    }
+
+    @Test
+    void shouldPersistChangeOnlyAfterAcknowledgement() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        GroupCommitTaskManager manager = new GroupCommitTaskManager(file, SnapshotFormat.CSV, FsyncPolicy.NEVER,
+                Duration.ofHours(1));
+        manager.start();
+        Epic epic = new Epic("Epic 1", "Description");
+        manager.addTask(epic);
+        manager.addTask(new Subtask("Subtask 2", "Description", epic, null, null));
+
+        assertEquals(0, Files.size(file), "До окончания окна файл не переписывается");
+        manager.flush();
+        assertEquals(2, savedTaskCount(file), "flush записывает изменения, не дожидаясь окна");
+        assertEquals(1, manager.getCommitCount(), "Оба изменения записаны одной записью");
+
+        manager.addTask(new Task("Task 3", "Description"));
+        manager.close();
+        assertEquals(3, savedTaskCount(file), "close записывает оставшиеся изменения");
+        assertEquals(2, manager.getCommitCount());
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldBatchConcurrentChangesIntoFewCommits() throws Exception {
+        Path file = Files.createTempFile("tasks", ".bin");
+        try (GroupCommitTaskManager manager = new GroupCommitTaskManager(file, SnapshotFormat.BINARY,
+                FsyncPolicy.NEVER, Duration.ofMillis(20))) {
+            manager.start();
+            TaskManager synchronizedManager = SynchronizedTaskManager.of(manager);
+            int clients = 16;
+            int tasksPerClient = 20;
+
+            ExecutorService executor = Executors.newFixedThreadPool(clients);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int clientId = client;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < tasksPerClient; i++) {
+                        synchronizedManager.addTask(new Task("Task " + clientId + "-" + i, "Description"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            // обёртка возвращает управление только после записи изменения, поэтому flush не нужен
+            assertEquals(clients * tasksPerClient, savedTaskCount(file), "Все подтверждённые изменения в файле");
+            assertTrue(manager.getCommitCount() < clients * tasksPerClient / 2,
+                    "Изменения клиентов объединяются в пачки, записей: " + manager.getCommitCount());
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldReportFailedCommitAndRetryWithNextChange() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        try (FailingGroupCommitTaskManager manager = new FailingGroupCommitTaskManager(file)) {
+            manager.start();
+            manager.failing = true;
+            manager.addTask(new Task("Task 1", "Description"));
+
+            assertThrows(ManagerSaveException.class, manager::awaitAcknowledgement);
+            assertEquals(1, manager.getAllTasks().size(), "Изменение остаётся в памяти");
+
+            manager.failing = false;
+            manager.addTask(new Task("Task 2", "Description"));
+            manager.awaitAcknowledgement();
+            assertEquals(2, savedTaskCount(file), "Следующая запись сохраняет все изменения");
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldNotWaitForWritesBeforeStart() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        try (GroupCommitTaskManager manager = new GroupCommitTaskManager(file)) {
+            manager.addTask(new Task("Task 1", "Description"));
+            assertThrows(IllegalStateException.class, manager::awaitAcknowledgement,
+                    "Без потока записи изменение не будет записано");
+
+            manager.start();
+            manager.awaitAcknowledgement();
+            assertEquals(1, savedTaskCount(file));
+            assertThrows(IllegalStateException.class, manager::start, "Поток записи запускается один раз");
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldWriteOnFlushAndCloseBeforeStart() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        GroupCommitTaskManager manager = new GroupCommitTaskManager(file);
+        manager.addTask(new Task("Task 1", "Description"));
+        manager.flush();
+        assertEquals(1, savedTaskCount(file), "Без потока записи flush пишет сам");
+
+        manager.addTask(new Task("Task 2", "Description"));
+        manager.close();
+        assertEquals(2, savedTaskCount(file), "Без потока записи close пишет сам");
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldRejectNegativeCommitWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitTaskManager(Path.of("tasks.csv"),
+                SnapshotFormat.CSV, FsyncPolicy.NEVER, Duration.ofMillis(-1)));
+    }
+
+    private static class FailingGroupCommitTaskManager extends GroupCommitTaskManager {
+        volatile boolean failing;
+
+        FailingGroupCommitTaskManager(Path path) {
+            super(path, SnapshotFormat.CSV, FsyncPolicy.NEVER, Duration.ZERO);
+        }
+
+        @Override
+        protected OutputStream snapshotStream(OutputStream out) {
+            if (failing) {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("Диск отключён");
+                    }
+                };
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.service.TestTasks.task;
+
+class HistoryPartitionsTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final HistoryPartitions partitions = new HistoryPartitions(2, Duration.ofMinutes(10), now::get);
+
+    @Test
+    void shouldKeepSeparateBoundedHistoryPerClient() {
+        Task first = task(1);
+        Task second = task(2);
+        Task third = task(3);
+
+        partitions.forClient("alice").add(first);
+        partitions.forClient("alice").add(second);
+        partitions.forClient("alice").add(third);
+        partitions.forClient("bob").add(first);
+
+        assertEquals(List.of(second, third), partitions.forClient("alice").getHistory(),
+                "История клиента ограничена своей ёмкостью");
+        assertEquals(List.of(first), partitions.forClient("bob").getHistory());
+        assertEquals(2, partitions.partitionCount());
+        assertEquals(3, partitions.retainedNodes());
+
+        partitions.remove(first.getId());
+        assertTrue(partitions.forClient("bob").getHistory().isEmpty(), "Удалённая задача пропадает у всех");
+        assertEquals(2, partitions.retainedNodes());
+
+        assertThrows(IllegalArgumentException.class, () -> partitions.forClient(" "));
+        assertThrows(IllegalArgumentException.class, () -> partitions.forClient("x".repeat(65)));
+    }
+
+    @Test
+    void shouldEvictIdlePartitions() {
+        partitions.forClient("alice").add(task(1));
+        partitions.forClient("bob").add(task(2));
+
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        partitions.forClient("bob").add(task(3));
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+
+        // проверка простоя запускается попутно с обращением
+        partitions.forClient("carol");
+
+        assertEquals(2, partitions.partitionCount(), "История alice простаивала дольше 10 минут");
+        assertEquals(2, partitions.retainedNodes());
+        assertTrue(partitions.forClient("alice").getHistory().isEmpty(), "После вытеснения история пустая");
+    }
+
+    @Test
+    void shouldIndexOnlyTasksKeptInHistories() {
+        partitions.forClient("alice").add(task(1));
+        partitions.forClient("alice").add(task(2));
+        partitions.forClient("bob").add(task(1));
+        assertEquals(2, partitions.indexedTasks());
+
+        // задача 1 вытеснена из истории alice по ёмкости, но осталась у bob
+        partitions.forClient("alice").add(task(3));
+        partitions.forClient("alice").getHistory();
+        assertEquals(3, partitions.indexedTasks());
+
+        partitions.remove(1);
+        assertTrue(partitions.forClient("bob").getHistory().isEmpty());
+        assertEquals(2, partitions.indexedTasks(), "Удалённая задача уходит из индекса");
+
+        now.addAndGet(Duration.ofMinutes(11).toMillis());
+        assertEquals(2, partitions.evictIdle());
+        assertEquals(0, partitions.indexedTasks(), "Вытесненные истории не остаются в индексе");
+
+        partitions.forClient("carol").add(task(4));
+        partitions.clear();
+        assertEquals(0, partitions.indexedTasks());
+    }
+}
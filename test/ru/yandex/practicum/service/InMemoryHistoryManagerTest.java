@@ -8,6 +8,8 @@ import ru.yandex.practicum.entity.Task;
 import ru.yandex.practicum.entity.Subtask;
 import ru.yandex.practicum.entity.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -108,8 +110,9 @@ class InMemoryHistoryManagerTest {
 
         // Создаем задачу
         Task createdTask = new Task("Task 1", "Des №1");
-        int id = createdTask.getId();
         taskManager.addTask(createdTask);
+        // id выдаётся менеджером при добавлении
+        int id = createdTask.getId();
         // сохраняем в историю
         taskManager.saveTaskToHistory(id);
 
@@ -174,4 +177,57 @@ class InMemoryHistoryManagerTest {
         Map<Integer, Task> tasksAfter = taskManager.getAllTasks();
         assertTrue(tasksAfter.isEmpty(), "Количество задач в taskManager должно остаться ноль");
     }
+
+    @Test
+    void testLeastRecentlyViewedTaskIsEvictedWhenFull() {
+        InMemoryHistoryManager historyManager = new InMemoryHistoryManager(2);
+        Task first = new Task(1, "Task 1", "Desc", Status.NEW, null, null);
+        Task second = new Task(2, "Task 2", "Desc", Status.NEW, null, null);
+        Task third = new Task(3, "Task 3", "Desc", Status.NEW, null, null);
+
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(first);  // повторный просмотр - first теперь самая свежая
+        historyManager.add(third);
+
+        assertEquals(List.of(first, third), historyManager.getHistory(),
+                "Вытесняется задача, которую дольше всех не просматривали");
+        assertEquals(2, historyManager.size(), "Размер истории не превышает ёмкость");
+    }
+
+    @Test
+    void testHistorySnapshotIsImmutableAndReused() {
+        addThreeTasksAndSaveToHistory();
+
+        List<Task> snapshot = taskManager.getHistory();
+        assertSame(snapshot, taskManager.getHistory(), "Без изменений история не пересобирается");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(task1),
+                "Снимок истории доступен только для чтения");
+
+        taskManager.saveTaskToHistory(task1.getId());
+        assertEquals(List.of(task1, task2, task3), snapshot, "Выданный снимок не меняется");
+        assertEquals(List.of(task2, task3, task1), taskManager.getHistory(), "Новый снимок отражает изменение");
+    }
+
+    @Test
+    void testHistoryKeepsEpicAsViewed() {
+        Epic epic = new Epic("Epic 1", "Desc");
+        taskManager.addTask(epic);
+        LocalDateTime start = LocalDateTime.of(2025, 5, 14, 9, 0);
+        Subtask subtask = new Subtask("Subtask 1", "Desc", epic, start, Duration.ofMinutes(30));
+        taskManager.addTask(subtask);
+        taskManager.saveTaskToHistory(epic.getId());
+        Task viewed = taskManager.getHistory().getFirst();
+
+        taskManager.updateTask(TaskType.SUBTASK, subtask.getId(), "Subtask 1", "Desc", Status.DONE,
+                start.plusHours(1), Duration.ofMinutes(60));
+        taskManager.addTask(new Subtask("Subtask 2", "Desc", epic, start.plusHours(3), Duration.ofMinutes(15)));
+
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Сам эпик пересчитывается");
+        assertEquals(Status.NEW, viewed.getStatus(), "Запись истории хранит эпик на момент просмотра");
+        assertEquals(start, viewed.getStartTime());
+        assertEquals(start.plusMinutes(30), viewed.getEndTime());
+        assertEquals(Duration.ofMinutes(30), viewed.getDuration());
+        assertSame(viewed, taskManager.getHistory().getFirst(), "Прежняя запись истории не меняется");
+    }
 }
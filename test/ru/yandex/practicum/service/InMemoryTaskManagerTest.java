@@ -1,8 +1,35 @@
 package ru.yandex.practicum.service;
 
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskEvent;
+import ru.yandex.practicum.entity.TaskEventType;
+import ru.yandex.practicum.entity.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     @Override
     protected InMemoryTaskManager createTaskManager() {
         return new InMemoryTaskManager();
     }
+
+    @Test
+    void clearingMoreTasksThanEventLogHoldsShouldKeepCursorsValid() {
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < TaskEventLog.DEFAULT_CAPACITY + 100; i++) {
+            batch.add(new Task("Task " + i, "Desc"));
+        }
+        taskManager.addTasks(batch);
+        long cursor = taskManager.getEventLog().lastSeq();
+
+        taskManager.clearTasksByType(TaskType.TASK);
+
+        List<TaskEvent> events = taskManager.getEventLog().since(cursor, 10);
+        assertEquals(1, events.size(), "Очистка - одно событие, курсор остаётся в журнале");
+        assertEquals(TaskEventType.CLEARED, events.getFirst().getType());
+    }
 }
@@ -0,0 +1,216 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.*;
+import ru.yandex.practicum.exceptions.ManagerSaveException;
+import ru.yandex.practicum.service.snapshot.FsyncPolicy;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledTaskManagerTest extends TaskManagerTest<JournaledTaskManager> {
+
+    // менеджеры, открытые тестом: у каждого свой поток свёртки
+    private final List<JournaledTaskManager> opened = new ArrayList<>();
+
+    @Override
+    protected JournaledTaskManager createTaskManager() {
+        try {
+            Path dir = Files.createTempDirectory("journal");
+            JournaledTaskManager manager = new JournaledTaskManager(dir.resolve("tasks.csv"));
+            manager.start();
+            return manager;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create temp dir", e);
+        }
+    }
+
+    @AfterEach
+    void closeManagers() {
+        opened.forEach(JournaledTaskManager::close);
+    }
+
+    private JournaledTaskManager reload(JournaledTaskManager manager) {
+        JournaledTaskManager loaded = JournaledTaskManager.loadFromFile(manager.path.toFile());
+        opened.add(loaded);
+        return loaded;
+    }
+
+    @Test
+    void shouldAppendToJournalWithoutRewritingSnapshot() throws IOException {
+        Epic epic = new Epic("Epic 1", "Description");
+        Task task = new Task("Task 1", "Description");
+        taskManager.addTask(epic);
+        taskManager.addTask(task);
+        taskManager.deleteTask(task);
+
+        assertFalse(Files.exists(taskManager.path), "Снимок не должен переписываться при каждом изменении");
+        List<String> records = Files.readAllLines(taskManager.getJournalPath());
+        assertEquals(3, records.size(), "В журнале должно быть 3 записи");
+        assertTrue(records.get(2).startsWith("3,-,"), "Последняя запись - удаление задачи");
+    }
+
+    @Test
+    void shouldReplayJournalOnLoad() {
+        Epic epic = new Epic("Epic 1", "Description");
+        taskManager.addTask(epic);
+        Subtask subtask = new Subtask("Subtask 1", "Description", epic,
+                LocalDateTime.of(2025, 5, 14, 9, 0), Duration.ofMinutes(30));
+        taskManager.addTask(subtask);
+        Task task = new Task("Task 1", "Description");
+        taskManager.addTask(task);
+        taskManager.updateTask(TaskType.SUBTASK, subtask.getId(), "Subtask 1", "Description",
+                Status.DONE, subtask.getStartTime(), subtask.getDuration());
+        taskManager.updateTask(TaskType.EPIC, epic.getId(), "Epic renamed", "Description",
+                null, null, null);
+        taskManager.deleteTask(task);
+
+        JournaledTaskManager loaded = reload(taskManager);
+
+        assertEquals(2, loaded.getAllTasks().size(), "Должны восстановиться эпик и подзадача");
+        Epic loadedEpic = assertInstanceOf(Epic.class, loaded.getTaskById(epic.getId()).orElseThrow());
+        assertEquals("Epic renamed", loadedEpic.getName(), "Должна восстановиться последняя версия эпика");
+        assertEquals(1, loadedEpic.getSubtasks().size(), "Эпик должен сохранить подзадачу");
+        assertEquals(Status.DONE, loadedEpic.getStatus(), "Статус эпика пересчитывается по подзадаче");
+        assertEquals(1, loaded.getPrioritizedTasks().size(), "Подзадача должна быть в списке приоритетов");
+    }
+
+    @Test
+    void shouldFoldJournalIntoSnapshotOnCompact() throws IOException {
+        taskManager.addTask(new Task("Task 1", "Description"));
+        taskManager.addTask(new Task("Task 2", "Description"));
+        taskManager.compact();
+
+        assertFalse(Files.exists(taskManager.getJournalPath()), "Журнал должен быть очищен после свёртки");
+        assertEquals(3, Files.readAllLines(taskManager.path).size(), "Снимок: заголовок + 2 задачи");
+
+        taskManager.addTask(new Task("Task 3", "Description"));
+        assertEquals(3, reload(taskManager).getAllTasks().size(), "Снимок и журнал должны объединяться");
+    }
+
+    @Test
+    void shouldSkipRecordsAlreadyFoldedIntoSnapshot() throws IOException {
+        Task task = new Task("Task 1", "Description");
+        taskManager.addTask(task);
+        taskManager.deleteTask(task);
+        List<String> journalBeforeCompact = Files.readAllLines(taskManager.getJournalPath());
+        taskManager.addTask(new Task("Task 2", "Description"));
+        taskManager.compact();
+
+        // имитируем сбой между записью снимка и очисткой журнала
+        Files.write(taskManager.getJournalPath(), journalBeforeCompact);
+
+        assertEquals(1, reload(taskManager).getAllTasks().size(),
+                "Свёрнутые записи не должны применяться повторно");
+    }
+
+    @Test
+    void shouldIgnoreTornLastRecord() throws IOException {
+        taskManager.addTask(new Task("Task 1", "Description"));
+        Files.writeString(taskManager.getJournalPath(), "2,+,7,Task,Tas",
+                StandardOpenOption.APPEND);
+
+        assertEquals(1, reload(taskManager).getAllTasks().size(),
+                "Недописанная последняя запись должна пропускаться");
+    }
+
+    @Test
+    void shouldWriteBatchAsSingleRecord() throws IOException {
+        taskManager.addTasks(List.of(new Task("Task 1", "Description"), new Task("Task 2", "Description")));
+        taskManager.addTask(new Task("Task 3", "Description"));
+
+        List<String> records = Files.readAllLines(taskManager.getJournalPath());
+        assertEquals("1,[,2", records.getFirst(), "Пачка начинается заголовком с размером");
+        assertEquals("1,]", records.get(3), "Пачка заканчивается строкой-окончанием");
+        assertTrue(records.get(4).startsWith("2,+,"), "Пачка занимает один номер записи");
+        assertEquals(3, reload(taskManager).getAllTasks().size());
+    }
+
+    @Test
+    void shouldSkipBatchTornBeforeItsEnd() throws IOException {
+        Task task = new Task("Task 1", "Description");
+        taskManager.addTask(task);
+        taskManager.addTasks(List.of(new Task("Task 2", "Description"), new Task("Task 3", "Description"),
+                new Task("Task 4", "Description")));
+
+        // имитируем сбой посреди записи пачки: обрезаем журнал внутри второй задачи пачки
+        Path journal = taskManager.getJournalPath();
+        List<String> records = Files.readAllLines(journal);
+        String torn = String.join(System.lineSeparator(), records.subList(0, 3))
+                + System.lineSeparator() + records.get(3).substring(0, 5);
+        Files.writeString(journal, torn);
+
+        JournaledTaskManager loaded = reload(taskManager);
+        assertEquals(1, loaded.getAllTasks().size(), "Из недописанной пачки не должно примениться ничего");
+        assertTrue(loaded.getTaskById(task.getId()).isPresent(), "Запись до пачки применяется");
+    }
+
+    @Test
+    void shouldCompactIntoBinarySnapshot() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        JournaledTaskManager manager = new JournaledTaskManager(dir.resolve("tasks.bin"), 10_000,
+                Duration.ofMinutes(1), SnapshotFormat.BINARY);
+        opened.add(manager);
+        manager.addTask(new Task("Task 1", "Description"));
+        manager.compact();
+        manager.addTask(new Task("Task 2", "Description"));
+
+        JournaledTaskManager loaded = reload(manager);
+
+        assertEquals(SnapshotFormat.BINARY, loaded.getFormat());
+        assertEquals(2, loaded.getAllTasks().size(), "Снимок и журнал после него");
+    }
+
+    @Test
+    void shouldSyncJournalAndSnapshotWithAlwaysPolicy() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        JournaledTaskManager manager = new JournaledTaskManager(dir.resolve("tasks.csv"), 10_000,
+                Duration.ofMinutes(1), SnapshotFormat.CSV, FsyncPolicy.ALWAYS);
+        opened.add(manager);
+        manager.addTask(new Task("Task 1", "Description"));
+        manager.compact();
+        manager.addTask(new Task("Task 2", "Description"));
+
+        assertEquals(FsyncPolicy.ALWAYS, manager.getFsyncPolicy());
+        assertEquals(2, reload(manager).getAllTasks().size());
+        assertFalse(Files.exists(dir.resolve("tasks.csv.tmp")), "Снимок записан через временный файл");
+
+        JournaledTaskManager loaded = JournaledTaskManager.loadFromFile(manager.path.toFile(), FsyncPolicy.ALWAYS);
+        opened.add(loaded);
+        assertEquals(FsyncPolicy.ALWAYS, loaded.getFsyncPolicy(), "Загруженная доска пишется с той же политикой");
+    }
+
+    @Test
+    void shouldRetryCompactionAfterFailedSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        Path snapshot = dir.resolve("tasks.csv");
+        JournaledTaskManager manager = new JournaledTaskManager(snapshot, 1, Duration.ofMillis(20));
+        opened.add(manager);
+        manager.addTask(new Task("Task 1", "Description"));
+
+        // на месте снимка - непустой каталог: записать снимок не получится
+        Files.createDirectories(snapshot.resolve("blocker"));
+        assertThrows(ManagerSaveException.class, manager::compact);
+        assertTrue(Files.exists(manager.getJournalPath()), "Журнал не свёрнут");
+
+        Files.delete(snapshot.resolve("blocker"));
+        Files.delete(snapshot);
+        manager.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Files.exists(manager.getJournalPath()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(Files.exists(manager.getJournalPath()), "Фоновая свёртка повторяет неудачную попытку");
+        assertEquals(1, reload(manager).getAllTasks().size());
+    }
+}
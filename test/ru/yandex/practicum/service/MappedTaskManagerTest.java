@@ -0,0 +1,139 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Subtask;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.snapshot.SnapshotFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Общие тесты из TaskManagerTest идут по пути "пустой снимок -> первое изменение загружает его";
+ * специфичные тесты проверяют ленивое чтение заполненного снимка.
+ */
+class MappedTaskManagerTest extends TaskManagerTest<MappedTaskManager> {
+
+    @Override
+    protected MappedTaskManager createTaskManager() {
+        try {
+            Path file = Files.createTempFile("tasks", ".bin");
+            new FileBackedTaskManager(file, SnapshotFormat.BINARY).save();
+            return MappedTaskManager.open(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create temp file", e);
+        }
+    }
+
+    // Эпик с двумя подзадачами (NEW и DONE), задача со временем и удалённая задача
+    private Path createSnapshot() throws IOException {
+        Path file = Files.createTempFile("tasks", ".bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addTask(epic);
+        manager.addTask(new Subtask("Subtask 2", "Description", epic,
+                LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofMinutes(30)));
+        Subtask done = new Subtask("Subtask 3", "Description", epic, null, null);
+        manager.addTask(done);
+        manager.updateTask(TaskType.SUBTASK, done.getId(), "Subtask 3", "Description", Status.DONE, null, null);
+        manager.addTask(new Task("Task 4", "Description", LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofMinutes(15)));
+        Task deleted = new Task("Task 5", "Description");
+        manager.addTask(deleted);
+        manager.deleteTask(deleted);
+        return file;
+    }
+
+    @Test
+    void shouldMaterializeTasksOnlyOnAccess() throws IOException {
+        Path file = createSnapshot();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+
+        assertFalse(manager.isFullyLoaded());
+        assertEquals(0, manager.materializedCount(), "При открытии задачи не создаются");
+        assertEquals(4, manager.getAllTasks().size(), "Размер известен из индекса");
+        assertTrue(manager.getTaskById(5).isEmpty(), "Удалённой задачи в снимке нет");
+
+        Task task = manager.getTaskById(4).orElseThrow();
+        assertEquals("Task 4", task.getName());
+        assertEquals(1, manager.materializedCount());
+        assertSame(task, manager.getTaskById(4).orElseThrow(), "Повторное обращение возвращает тот же объект");
+
+        // подзадача создаёт эпик со всеми его подзадачами
+        Subtask subtask = assertInstanceOf(Subtask.class, manager.getTaskById(2).orElseThrow());
+        assertEquals(4, manager.materializedCount());
+        Epic epic = subtask.getParentEpic();
+        assertSame(epic, manager.getTaskById(1).orElseThrow());
+        assertEquals("Эпик", epic.getName());
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика считается по подзадачам");
+        assertEquals(2, manager.getSubtasksByEpic(epic).orElseThrow().size());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), epic.getStartTime());
+
+        manager.saveTaskToHistory(4);
+        assertEquals(List.of(task), manager.getHistory());
+        assertFalse(manager.isFullyLoaded(), "Чтение не загружает снимок целиком");
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldListAndPageTasksFromSnapshot() throws IOException {
+        Path file = createSnapshot();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+
+        Map<Integer, Task> subtasks = manager.getAllTasksByType(TaskType.SUBTASK);
+        assertEquals(2, subtasks.size());
+        assertTrue(subtasks.containsKey(3));
+        assertFalse(subtasks.containsKey(4), "Задача другого типа не попадает в список подзадач");
+        assertEquals(List.of(2, 3), List.copyOf(subtasks.keySet()), "Задачи идут по возрастанию id");
+
+        List<Task> page = manager.getTasksPage(TaskType.SUBTASK, 2, 10);
+        assertEquals(1, page.size());
+        assertEquals(3, page.get(0).getId());
+        assertTrue(manager.getTasksPage(TaskType.TASK, 4, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksPage(TaskType.TASK, 0, 0));
+        assertFalse(manager.isFullyLoaded());
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldLoadSnapshotOnFirstChange() throws IOException {
+        Path file = createSnapshot();
+        MappedTaskManager manager = MappedTaskManager.open(file);
+        Task viewed = manager.getTaskById(4).orElseThrow();
+        Map<Integer, Task> allTasks = manager.getAllTasks();
+
+        Task task = new Task("Task 6", "Description");
+        manager.addTask(task);
+
+        assertTrue(manager.isFullyLoaded());
+        assertEquals(6, task.getId(), "id удалённых задач не выдаются повторно (lastId из заголовка)");
+        assertSame(viewed, manager.getTaskById(4).orElseThrow(), "Созданные ранее задачи сохраняются");
+        assertEquals(5, allTasks.size(), "Полученная раньше карта показывает текущие задачи");
+        assertEquals(2, manager.getPrioritizedTasks().size());
+        assertThrows(RuntimeException.class, () -> manager.addTask(new Task("Task 7", "Description",
+                LocalDateTime.of(2025, 1, 1, 10, 15), Duration.ofMinutes(10))), "Пересечение с задачей из снимка");
+
+        MappedTaskManager reopened = MappedTaskManager.open(file);
+        assertEquals(5, reopened.getAllTasks().size(), "Изменение переписывает снимок");
+        assertEquals("Task 6", reopened.getTaskById(6).orElseThrow().getName());
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldRejectSnapshotWithoutIndex() throws IOException {
+        Path file = Files.createTempFile("tasks", ".csv");
+        new FileBackedTaskManager(file).save();
+
+        assertThrows(RuntimeException.class, () -> MappedTaskManager.open(file), "CSV сначала переводится в двоичный");
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.exceptions.TimeConflictException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Общие тесты менеджера с картой занятости по 15 минут и сравнение с менеджером без неё.
+ */
+class OccupancyGridTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+    private static final Duration BUCKET = Duration.ofMinutes(15);
+
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.enableOccupancyGrid(BUCKET);
+        return manager;
+    }
+
+    @Test
+    void shouldAgreeWithExactIndexOnRandomSchedule() {
+        InMemoryTaskManager exact = new InMemoryTaskManager();
+        InMemoryTaskManager withGrid = createTaskManager();
+        LocalDateTime base = LocalDateTime.of(2025, 5, 14, 20, 0);
+        Random random = new Random(42);
+        List<Integer> ids = new ArrayList<>();
+
+        for (int id = 1; id <= 3000; id++) {
+            if (!ids.isEmpty() && random.nextInt(4) == 0) {
+                // удаление освобождает корзины, которые не делит с соседями
+                int deleted = ids.remove(random.nextInt(ids.size()));
+                assertEquals(exact.deleteTask(exact.getTaskById(deleted).orElseThrow()),
+                        withGrid.deleteTask(withGrid.getTaskById(deleted).orElseThrow()));
+            }
+            // начала и концы не по сетке, интервалы переходят через полночь
+            LocalDateTime start = base.plusMinutes(random.nextInt(3 * 24 * 60));
+            Duration duration = Duration.ofMinutes(1 + random.nextInt(random.nextBoolean() ? 20 : 180));
+            boolean exactAdded = tryAdd(exact, new Task(id, "Task " + id, "", Status.NEW, start, duration));
+            boolean gridAdded = tryAdd(withGrid, new Task(id, "Task " + id, "", Status.NEW, start, duration));
+            assertEquals(exactAdded, gridAdded, "Проверка пересечения задачи " + id);
+            if (exactAdded) {
+                ids.add(id);
+            }
+
+            if (id % 50 == 0) {
+                LocalDateTime from = base.plusMinutes(random.nextInt(3 * 24 * 60));
+                LocalDateTime to = from.plusMinutes(1 + random.nextInt(24 * 60));
+                for (int minutes : new int[]{0, 10, 30, 45, 120}) {
+                    Duration minDuration = Duration.ofMinutes(minutes);
+                    assertEquals(exact.findFreeSlots(from, to, minDuration, 20),
+                            withGrid.findFreeSlots(from, to, minDuration, 20),
+                            "Свободные промежутки от " + from + " до " + to + " не короче " + minutes + " мин.");
+                }
+            }
+        }
+        assertEquals(exact.getPrioritizedTasks().size(), withGrid.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldRejectBucketThatDoesNotDivideDay() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        assertThrows(IllegalArgumentException.class, () -> manager.enableOccupancyGrid(Duration.ofMinutes(7)));
+        assertThrows(UnsupportedOperationException.class,
+                () -> new ConcurrentTaskManager().enableOccupancyGrid(BUCKET));
+    }
+
+    private static boolean tryAdd(TaskManager manager, Task task) {
+        try {
+            manager.addTask(task);
+            return true;
+        } catch (TimeConflictException e) {
+            return false;
+        }
+    }
+}
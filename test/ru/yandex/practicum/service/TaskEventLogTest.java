@@ -0,0 +1,67 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskEvent;
+import ru.yandex.practicum.entity.TaskEventType;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.exceptions.EventsExpiredException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventLogTest {
+    private final TaskEventLog eventLog = new TaskEventLog(3);
+
+    private void publish(int id) {
+        eventLog.publish(TaskEventType.CREATED, TaskType.TASK,
+                new Task(id, "Task " + id, "Desc", Status.NEW, null, null));
+    }
+
+    private static List<Long> seqs(List<TaskEvent> events) {
+        return events.stream().map(TaskEvent::getSeq).toList();
+    }
+
+    @Test
+    void shouldNumberEventsAndKeepOnlyLastCapacity() {
+        assertTrue(eventLog.since(0, 10).isEmpty(), "Событий ещё нет");
+        publish(1);
+        publish(2);
+        assertEquals(List.of(1L, 2L), seqs(eventLog.since(0, 10)));
+        assertEquals(List.of(1L), seqs(eventLog.since(0, 1)), "limit ограничивает выдачу");
+
+        publish(3);
+        publish(4);
+        assertEquals(4, eventLog.lastSeq());
+        assertEquals(List.of(2L, 3L, 4L), seqs(eventLog.since(1, 10)), "В буфере последние 3 события");
+        assertEquals(2, eventLog.since(1, 10).getFirst().getId());
+        assertThrows(EventsExpiredException.class, () -> eventLog.since(0, 10), "Событие 1 вытеснено");
+        assertThrows(EventsExpiredException.class, () -> eventLog.since(5, 10), "Номер из будущего");
+
+        eventLog.truncate();
+        assertTrue(eventLog.since(4, 10).isEmpty(), "После truncate читается только новое");
+        assertThrows(EventsExpiredException.class, () -> eventLog.since(3, 10));
+        publish(5);
+        assertEquals(List.of(5L), seqs(eventLog.since(4, 10)), "Номера продолжаются");
+    }
+
+    @Test
+    void awaitShouldReturnOnFirstEventOrTimeout() throws Exception {
+        assertTrue(eventLog.await(0, 10, Duration.ofMillis(50)).isEmpty(), "За timeout изменений не было");
+
+        CompletableFuture<List<TaskEvent>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return eventLog.await(0, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        publish(1);
+        assertEquals(List.of(1L), seqs(waiting.get()), "Ожидание заканчивается с первым событием");
+    }
+}
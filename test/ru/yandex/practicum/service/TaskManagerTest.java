@@ -1,13 +1,18 @@
 package ru.yandex.practicum.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.entity.*;
 import ru.yandex.practicum.exceptions.TimeConflictException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -24,6 +29,27 @@ abstract class TaskManagerTest<T extends TaskManager> {
         taskManager = createTaskManager();
     }
 
+    // менеджеры с фоновыми потоками закрываются после каждого теста
+    @AfterEach
+    public void afterEach() throws Exception {
+        if (taskManager instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    protected static Path createTempFile() {
+        try {
+            return Files.createTempFile("tasks", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create temp file", e);
+        }
+    }
+
+    // число задач, которое увидит загрузка файла с нуля
+    protected static int savedTaskCount(Path file) {
+        return FileBackedTaskManager.loadFromFile(file.toFile()).getAllTasks().size();
+    }
+
     @Test
     public void testAddAndFindDifferentTaskTypes() {
         // Создаем задачи разного типа
@@ -62,6 +88,27 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(optionalActualSubtask.isPresent(), "Задача SUBTASK должна быть найдена");
     }
 
+    @Test
+    public void testTasksByTypeFollowAddAndDelete() {
+        Task task = new Task("Task 1", "Description");
+        Epic epic = new Epic("Epic 1", "Description");
+        taskManager.addTask(task);
+        taskManager.addTask(epic);
+        Subtask subtask = new Subtask("Subtask 1", "Description", epic, null, null);
+        taskManager.addTask(subtask);
+
+        Map<Integer, Task> subtasks = taskManager.getAllTasksByType(TaskType.SUBTASK);
+        assertThrows(UnsupportedOperationException.class, () -> subtasks.remove(subtask.getId()),
+                "Список задач по типу доступен только для чтения");
+
+        taskManager.clearTasksByType(TaskType.EPIC);
+
+        assertTrue(taskManager.getAllTasksByType(TaskType.EPIC).isEmpty(), "Эпики должны быть удалены");
+        assertTrue(taskManager.getAllTasksByType(TaskType.SUBTASK).isEmpty(),
+                "Подзадачи удаляются вместе с эпиком");
+        assertEquals(1, taskManager.getAllTasksByType(TaskType.TASK).size(), "Обычная задача должна остаться");
+    }
+
     @Test
     public void testTasksWithManualAndAutoGeneratedIdDoNotConflict() {
         // Создаем задачу с заданным id
@@ -92,8 +139,8 @@ abstract class TaskManagerTest<T extends TaskManager> {
 
     @Test
     public void testTaskImmutabilityAfterAddingToManager() {
-        // Создаем задачу
-        Task task = new Task("Task 1", "Des 1");
+        // Создаем задачу с заданным id: менеджер не должен его менять
+        Task task = new Task(1, "Task 1", "Des 1", Status.NEW, null, null);
         int id = task.getId();
         String name = task.getName();
         String description = task.getDescription();
@@ -224,6 +271,38 @@ abstract class TaskManagerTest<T extends TaskManager> {
                 "Задачи, начинающиеся точно в конце других, не должны конфликтовать");
     }
 
+    @Test
+    public void testTimeOverlapWithNeighbourTasks() {
+        LocalDateTime baseTime = LocalDateTime.of(2025, 5, 14, 9, 0);
+
+        Task first = new Task("First", "Desc", baseTime, Duration.ofMinutes(60));
+        Task second = new Task("Second", "Desc", baseTime.plusMinutes(120), Duration.ofMinutes(60));
+        taskManager.addTask(first);
+        taskManager.addTask(second);
+
+        // Начинается внутри первой задачи
+        Task insideFirst = new Task("Inside first", "Desc", baseTime.plusMinutes(30), Duration.ofMinutes(10));
+        assertThrows(TimeConflictException.class, () -> taskManager.addTask(insideFirst),
+                "Задача, начинающаяся внутри другой, должна конфликтовать");
+
+        // Накрывает вторую задачу целиком
+        Task coversSecond = new Task("Covers second", "Desc", baseTime.plusMinutes(90), Duration.ofMinutes(180));
+        assertThrows(TimeConflictException.class, () -> taskManager.addTask(coversSecond),
+                "Задача, накрывающая другую, должна конфликтовать");
+
+        // Ровно в промежутке между задачами
+        Task inGap = new Task("In gap", "Desc", baseTime.plusMinutes(60), Duration.ofMinutes(60));
+        assertDoesNotThrow(() -> taskManager.addTask(inGap),
+                "Задача в свободном промежутке не должна конфликтовать");
+
+        // Обновление задачи не должно конфликтовать с её прежней версией
+        assertDoesNotThrow(() -> taskManager.updateTask(TaskType.TASK, second.getId(), "Second", "Desc",
+                        Status.NEW, baseTime.plusMinutes(150), Duration.ofMinutes(60)),
+                "Сдвиг задачи не должен конфликтовать с её прежней версией");
+        assertEquals(3, taskManager.getPrioritizedTasks().size(),
+                "Обновлённая задача должна заменить прежнюю версию в списке приоритетов");
+    }
+
     @Test
     public void testPrioritizedTasksOrder() {
         LocalDateTime earlyTime = LocalDateTime.now();
@@ -278,5 +357,190 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertFalse(taskManager.getTaskById(epic.getId()).isPresent(),
                 "Эпик должен быть удален");
     }
-}
 
+    @Test
+    public void testIdsAreIssuedByEachManagerIndependently() {
+        T otherManager = createTaskManager();
+        Task task = new Task("Task 1", "Desc");
+        Task otherTask = new Task("Task 1", "Desc");
+
+        taskManager.addTask(task);
+        otherManager.addTask(otherTask);
+
+        assertEquals(1, task.getId(), "Первый id менеджера - 1");
+        assertEquals(1, otherTask.getId(), "Другой менеджер ведёт свою нумерацию");
+
+        Epic epic = new Epic("Epic", "Desc");
+        taskManager.addTask(epic);
+        Subtask subtask = new Subtask("Subtask", "Desc", epic, null, null);
+        assertTrue(epic.getSubtasks().isEmpty(), "Подзадача без id ещё не входит в эпик");
+        taskManager.addTask(subtask);
+        assertEquals(3, subtask.getId());
+        assertTrue(epic.getSubtasks().containsKey(subtask.getId()), "После добавления подзадача в эпике");
+    }
+
+    @Test
+    public void testTasksPageAndPrioritizedRange() {
+        LocalDateTime base = LocalDateTime.of(2025, 5, 14, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("Task " + i, "Desc", base.plusHours(i), Duration.ofMinutes(30)));
+        }
+        taskManager.addTask(new Epic("Epic", "Desc"));
+
+        List<Task> firstPage = taskManager.getTasksPage(TaskType.TASK, 0, 2);
+        assertEquals(List.of(1, 2), firstPage.stream().map(Task::getId).toList(), "Первая страница - id 1 и 2");
+        List<Task> lastPage = taskManager.getTasksPage(TaskType.TASK, 4, 2);
+        assertEquals(List.of(5), lastPage.stream().map(Task::getId).toList(), "После id 4 осталась одна задача");
+        assertTrue(taskManager.getTasksPage(TaskType.TASK, 5, 2).isEmpty(), "За последней задачей страниц нет");
+
+        List<Task> range = taskManager.getPrioritizedTasks(base.plusHours(1), base.plusHours(4), 10);
+        assertEquals(List.of("Task 1", "Task 2", "Task 3"), range.stream().map(Task::getName).toList(),
+                "Диапазон [from, to) по времени начала");
+        assertEquals(2, taskManager.getPrioritizedTasks(null, null, 2).size(), "limit ограничивает выдачу");
+        assertEquals(5, taskManager.getPrioritizedTasks(null, null, 100).size(), "Без границ - всё расписание");
+    }
+
+    @Test
+    public void testAddTasksIsAllOrNothing() {
+        LocalDateTime base = LocalDateTime.of(2025, 5, 14, 9, 0);
+        Task existing = new Task("Existing", "Desc", base, Duration.ofMinutes(60));
+        taskManager.addTask(existing);
+        Epic epic = new Epic("Epic", "Desc");
+        taskManager.addTask(epic);
+
+        List<Task> batch = List.of(
+                new Task("Batch 1", "Desc", base.plusHours(2), Duration.ofMinutes(30)),
+                new Subtask("Batch 2", "Desc", epic, base.plusHours(1), Duration.ofMinutes(60)),
+                new Task("Batch 3", "Desc"));
+        taskManager.addTasks(batch);
+        assertTrue(batch.stream().allMatch(task -> task.getId() != Task.NO_ID), "Все задачи пачки получили id");
+        assertEquals(5, taskManager.getAllTasks().size());
+        assertEquals(List.of("Existing", "Batch 2", "Batch 1"),
+                taskManager.getPrioritizedTasks().stream().map(Task::getName).toList());
+        assertTrue(epic.getSubtasks().containsKey(batch.get(1).getId()), "Подзадача пачки в эпике");
+
+        // пересечение внутри пачки
+        List<Task> overlappingInside = List.of(
+                new Task("Inside 1", "Desc", base.plusHours(5), Duration.ofMinutes(60)),
+                new Task("Inside 2", "Desc", base.plusHours(5).plusMinutes(30), Duration.ofMinutes(60)));
+        assertThrows(TimeConflictException.class, () -> taskManager.addTasks(overlappingInside));
+        // пересечение с расписанием: задача пачки накрывает существующую
+        List<Task> overlappingExisting = List.of(
+                new Task("Free", "Desc", base.plusHours(6), Duration.ofMinutes(30)),
+                new Task("Covers", "Desc", base.minusMinutes(30), Duration.ofHours(2)));
+        assertThrows(TimeConflictException.class, () -> taskManager.addTasks(overlappingExisting));
+        // один и тот же id дважды
+        List<Task> duplicateIds = List.of(new Task(100, "Dup 1", "Desc", Status.NEW, null, null),
+                new Task(100, "Dup 2", "Desc", Status.NEW, null, null));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTasks(duplicateIds));
+
+        assertEquals(5, taskManager.getAllTasks().size(), "Отклонённые пачки не добавлены даже частично");
+        assertEquals(3, taskManager.getPrioritizedTasks().size());
+
+        // задача пачки с id существующей заменяет её и не конфликтует со своей прежней версией
+        taskManager.addTasks(List.of(new Task(existing.getId(), "Existing moved", "Desc", Status.NEW,
+                base.plusMinutes(30), Duration.ofMinutes(30))));
+        assertEquals("Existing moved", taskManager.getPrioritizedTasks().iterator().next().getName());
+        assertEquals(3, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    public void testFindFreeSlotsAndPlaceTask() {
+        LocalDateTime base = LocalDateTime.of(2025, 5, 14, 9, 0);
+        taskManager.addTask(new Task("Early", "Desc", base.minusMinutes(30), Duration.ofMinutes(60)));
+        taskManager.addTask(new Task("Middle", "Desc", base.plusHours(1), Duration.ofMinutes(30)));
+        taskManager.addTask(new Task("Late", "Desc", base.plusHours(2), Duration.ofMinutes(90)));
+
+        // расписание в [9:00, 12:00): 8:30-9:30, 10:00-10:30, 11:00-12:30
+        assertEquals(List.of(new TimeSlot(base.plusMinutes(30), base.plusHours(1)),
+                        new TimeSlot(base.plusMinutes(90), base.plusHours(2))),
+                taskManager.findFreeSlots(base, base.plusHours(3), Duration.ZERO, 10),
+                "Промежутки между задачами; начало - после задачи, начавшейся до from");
+        assertEquals(List.of(new TimeSlot(base.plusMinutes(210), base.plusHours(5))),
+                taskManager.findFreeSlots(base, base.plusHours(5), Duration.ofMinutes(31), 10),
+                "Промежутки короче minDuration пропускаются");
+        assertEquals(1, taskManager.findFreeSlots(base, base.plusHours(5), Duration.ZERO, 1).size(),
+                "limit ограничивает выдачу");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(base, base, Duration.ZERO, 10));
+
+        Task placed = taskManager.placeTask(TaskType.TASK, "Placed", "Desc", null, Duration.ofMinutes(30),
+                base, base.plusHours(5));
+        assertEquals(base.plusMinutes(30), placed.getStartTime(), "Самый ранний подходящий промежуток");
+        assertTrue(taskManager.getTaskById(placed.getId()).isPresent());
+
+        Epic epic = new Epic("Epic", "Desc");
+        taskManager.addTask(epic);
+        Task placedSubtask = taskManager.placeTask(TaskType.SUBTASK, "Placed subtask", "Desc", epic,
+                Duration.ofMinutes(45), base, base.plusHours(5));
+        assertEquals(base.plusMinutes(210), placedSubtask.getStartTime(), "Короткие промежутки пропущены");
+        assertTrue(epic.getSubtasks().containsKey(placedSubtask.getId()));
+
+        assertThrows(TimeConflictException.class, () -> taskManager.placeTask(TaskType.TASK, "Too long", "Desc",
+                null, Duration.ofHours(2), base, base.plusHours(5)));
+        assertEquals(5, taskManager.getPrioritizedTasks().size(), "Неразмещённая задача не добавлена");
+    }
+
+    @Test
+    public void testEventLogRecordsMutationsInOrder() {
+        TaskEventLog eventLog = taskManager.getEventLog();
+        long start = eventLog.lastSeq();
+
+        Epic epic = new Epic("Epic", "Desc");
+        taskManager.addTask(epic);
+        Task task = taskManager.createTask(TaskType.TASK, "Task", "Desc", null, null, null);
+        Subtask subtask = new Subtask("Subtask", "Desc", epic, null, null);
+        taskManager.addTask(subtask);
+        taskManager.updateTask(TaskType.TASK, task.getId(), "Task v2", "Desc", Status.DONE, null, null);
+        taskManager.deleteTask(epic);
+        taskManager.clearTasksByType(TaskType.TASK);
+
+        List<TaskEvent> events = eventLog.since(start, 100);
+        assertEquals(List.of(TaskEventType.CREATED, TaskEventType.CREATED, TaskEventType.CREATED,
+                        TaskEventType.UPDATED, TaskEventType.DELETED, TaskEventType.DELETED,
+                        TaskEventType.CLEARED),
+                events.stream().map(TaskEvent::getType).toList());
+        assertEquals(epic.getId(), events.get(0).getId());
+        assertEquals(TaskType.SUBTASK, events.get(2).getTaskType());
+        assertEquals("Task v2", events.get(3).getTask().getName(), "Событие несёт новую версию задачи");
+        assertEquals(subtask.getId(), events.get(4).getId(), "Удаление эпика удаляет и подзадачи");
+        assertEquals(epic.getId(), events.get(5).getId());
+        assertEquals(TaskType.TASK, events.get(6).getTaskType(), "Очистка типа - одно событие без удалений");
+        assertNull(events.get(6).getId());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(start + i + 1, events.get(i).getSeq(), "Номера идут подряд");
+        }
+
+        taskManager.clearAllTasks();
+        TaskEvent cleared = eventLog.since(start + events.size(), 10).getFirst();
+        assertEquals(TaskEventType.CLEARED, cleared.getType());
+        assertNull(cleared.getTaskType(), "Очищена вся доска");
+    }
+
+    @Test
+    public void testVersionsChangeWithAffectedLists() {
+        Epic epic = new Epic("Epic", "Desc");
+        taskManager.addTask(epic);
+        long tasks = taskManager.getVersion(TaskType.TASK);
+        long epics = taskManager.getVersion(TaskType.EPIC);
+        long schedule = taskManager.getPrioritizedVersion();
+
+        taskManager.addTask(new Subtask("Subtask", "Desc", epic, LocalDateTime.of(2025, 5, 14, 9, 0),
+                Duration.ofMinutes(30)));
+        assertEquals(tasks, taskManager.getVersion(TaskType.TASK), "Список задач не менялся");
+        assertTrue(taskManager.getVersion(TaskType.EPIC) > epics, "Статус эпика считается по подзадачам");
+        assertTrue(taskManager.getPrioritizedVersion() > schedule);
+
+        long subtasks = taskManager.getVersion(TaskType.SUBTASK);
+        long history = taskManager.getHistoryManager().getVersion();
+        taskManager.addTask(new Task("Task", "Desc"));
+        assertTrue(taskManager.getVersion(TaskType.TASK) > tasks);
+        assertEquals(subtasks, taskManager.getVersion(TaskType.SUBTASK));
+
+        taskManager.saveTaskToHistory(epic.getId());
+        assertTrue(taskManager.getHistoryManager().getVersion() > history, "Просмотр меняет историю");
+
+        taskManager.clearAllTasks();
+        assertTrue(taskManager.getVersion(TaskType.SUBTASK) > subtasks, "Очистка меняет все списки");
+    }
+}
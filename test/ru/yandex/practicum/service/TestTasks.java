@@ -0,0 +1,15 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Task;
+
+// задачи с заданным id для тестов истории
+final class TestTasks {
+
+    private TestTasks() {
+    }
+
+    static Task task(int id) {
+        return new Task(id, "Task " + id, "Desc", Status.NEW, null, null);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.service.httpTaskManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.TaskDto;
+import ru.yandex.practicum.entity.TaskType;
+import ru.yandex.practicum.service.HttpTaskServer;
+import ru.yandex.practicum.service.HttpTaskServer.ExecutionMode;
+import ru.yandex.practicum.service.InMemoryTaskManager;
+import ru.yandex.practicum.service.TaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестирование параллельной обработки запросов в разных режимах HttpTaskServer
+ */
+class ConcurrentRequestsHttpTest {
+    private static final String BASE_URL = "http://localhost:8080";
+    private TaskManager manager;
+    private HttpTaskServer taskServer;
+
+    private void startServer(ExecutionMode mode) throws IOException {
+        manager = new InMemoryTaskManager();
+        taskServer = new HttpTaskServer(manager, 8080, mode, 4);
+        taskServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskServer.stop();
+    }
+
+    @Test
+    void slowClientShouldNotBlockOthersOnPlatformPool() throws Exception {
+        startServer(ExecutionMode.PLATFORM_POOL);
+
+        // клиент начал запрос, но так и не дописал заголовки
+        try (Socket slowClient = new Socket("localhost", 8080)) {
+            OutputStream out = slowClient.getOutputStream();
+            out.write("GET /tasks HTTP/1.1\r\nHost: localhost\r\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(BASE_URL + "/tasks"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), "Медленный клиент не должен задерживать остальных");
+        }
+    }
+
+    @Test
+    void parallelPostsShouldCreateAllTasks() throws Exception {
+        startServer(ExecutionMode.VIRTUAL_THREADS);
+        HttpClient client = HttpClient.newHttpClient();
+        LocalDateTime baseTime = LocalDateTime.of(2025, 5, 14, 9, 0);
+        int count = 50;
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TaskDto taskDto = new TaskDto(null, "Task " + i, "Desc", "NEW",
+                    baseTime.plusHours(i), Duration.ofMinutes(30), null);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(BASE_URL + "/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(taskServer.getGson().toJson(taskDto)))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(201, response.get().statusCode(), "Каждая задача должна быть создана");
+        }
+        assertEquals(count, manager.getAllTasksByType(TaskType.TASK).size(),
+                "Ни одна задача не должна потеряться");
+        assertEquals(count, manager.getPrioritizedTasks().size(),
+                "Все задачи должны попасть в список приоритетов");
+    }
+}
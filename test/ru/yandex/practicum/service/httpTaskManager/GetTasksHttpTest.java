@@ -1,5 +1,8 @@
 package ru.yandex.practicum.service.httpTaskManager;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.entity.Epic;
 import ru.yandex.practicum.entity.Subtask;
 import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TimeSlot;
 import ru.yandex.practicum.service.HttpTaskServer;
 import ru.yandex.practicum.service.InMemoryTaskManager;
 import ru.yandex.practicum.service.TaskManager;
@@ -22,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -206,6 +211,33 @@ class GetTasksHttpTest {
         assertTrue(historyIds.contains(subtask3.getId()));
     }
 
+    @Test
+    void historyShouldBeKeptPerClient() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest viewByHeader = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks/" + task2.getId()))
+                .header("X-Client-Id", "alice")
+                .GET()
+                .build();
+        assertEquals(200, client.send(viewByHeader, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(200, sendGetRequestWithStatus("/subtasks/" + subtask1.getId() + "?client=bob").statusCode());
+
+        List<Task> aliceHistory = taskServer.getGson().fromJson(
+                sendGetRequestWithStatus("/history?client=alice").body(), new TaskListTypeToken().getType());
+        List<Task> bobHistory = taskServer.getGson().fromJson(
+                sendGetRequestWithStatus("/history?client=bob").body(), new TaskListTypeToken().getType());
+        assertEquals(List.of(task2.getId()), aliceHistory.stream().map(Task::getId).toList());
+        assertEquals(List.of(subtask1.getId()), bobHistory.stream().map(Task::getId).toList());
+        assertEquals(2, manager.getHistory().size(), "Общая история не меняется");
+
+        Map<String, Double> stats = taskServer.getGson().fromJson(
+                sendGetRequestWithStatus("/history/stats").body(),
+                new TypeToken<Map<String, Double>>() {
+                }.getType());
+        assertEquals(2, stats.get("partitions").intValue());
+        assertEquals(2, stats.get("retainedNodes").intValue());
+    }
+
     @Test
     void getPrioritizedShouldReturnSortedTasks() throws Exception {
         HttpResponse<String> response = sendGetRequestWithStatus("/prioritized");
@@ -226,9 +258,162 @@ class GetTasksHttpTest {
         );
     }
 
+    @Test
+    void listShouldBeStreamedAsCompactJson() throws Exception {
+        HttpResponse<String> response = sendGetRequestWithStatus("/tasks");
+        assertEquals(200, response.statusCode(), "Должен вернуться статус 200");
+
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(""),
+                "Ответ должен передаваться частями");
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(),
+                "Длина потокового ответа заранее неизвестна");
+        assertFalse(response.body().contains("\n"), "По умолчанию JSON без переносов строк");
+    }
+
+    @Test
+    void prettyParameterShouldIndentJson() throws Exception {
+        HttpResponse<String> response = sendGetRequestWithStatus("/prioritized?pretty=true");
+        assertEquals(200, response.statusCode(), "Должен вернуться статус 200");
+        assertTrue(response.body().contains("\n  "), "С ?pretty=true JSON должен быть с отступами");
+
+        List<Task> prioritized = taskServer.getGson().fromJson(response.body(),
+                new TaskListTypeToken().getType());
+        assertEquals(5, prioritized.size(), "Форматирование не должно менять содержимое");
+    }
+
+    @Test
+    void tasksShouldBePagedByCursor() throws Exception {
+        HttpResponse<String> first = sendGetRequestWithStatus("/tasks?limit=1");
+        assertEquals(200, first.statusCode(), "Должен вернуться статус 200");
+        Map<Integer, Task> firstPage = taskServer.getGson().fromJson(first.body(), new TaskMapTypeToken().getType());
+        assertEquals(Set.of(task1.getId()), firstPage.keySet(), "Первая страница - задача с меньшим id");
+        String cursor = first.headers().firstValue("X-Next-After").orElseThrow();
+
+        HttpResponse<String> second = sendGetRequestWithStatus("/tasks?limit=1&after=" + cursor);
+        Map<Integer, Task> secondPage = taskServer.getGson().fromJson(second.body(), new TaskMapTypeToken().getType());
+        assertEquals(Set.of(task2.getId()), secondPage.keySet(), "Вторая страница начинается после курсора");
+        assertTrue(second.headers().firstValue("X-Next-After").isEmpty(), "Страниц больше нет");
+
+        assertEquals(400, sendGetRequestWithStatus("/tasks?limit=0").statusCode(), "limit вне диапазона - 400");
+    }
+
+    @Test
+    void prioritizedShouldBeFilteredByStartTime() throws Exception {
+        HttpResponse<String> response = sendGetRequestWithStatus(
+                "/prioritized?from=2025-05-14T10:00&to=2025-05-14T12:00&limit=1");
+        assertEquals(200, response.statusCode(), "Должен вернуться статус 200");
+
+        List<Task> page = taskServer.getGson().fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(List.of("Упаковать кошку"), page.stream().map(Task::getName).toList(),
+                "Первая задача, начинающаяся не раньше from");
+        assertEquals("2025-05-14T11:00", response.headers().firstValue("X-Next-From").orElseThrow(),
+                "Курсор - начало следующей задачи диапазона");
+
+        HttpResponse<String> rest = sendGetRequestWithStatus(
+                "/prioritized?from=2025-05-14T11:00&to=2025-05-14T12:00");
+        List<Task> restPage = taskServer.getGson().fromJson(rest.body(), new TaskListTypeToken().getType());
+        assertEquals(List.of("Включить чайник", "Заварить чай"), restPage.stream().map(Task::getName).toList(),
+                "Задача, начинающаяся ровно в to, не входит в диапазон");
+
+        assertEquals(400, sendGetRequestWithStatus("/prioritized?from=14.05.2025").statusCode(),
+                "Неверный формат времени - 400");
+    }
+
     @Test
     void getNonExistentTaskShouldReturn404() throws Exception {
         HttpResponse<String> response = sendGetRequestWithStatus("/tasks/999");
         assertEquals(404, response.statusCode(), "Должен вернуться статус 404");
     }
-}
\ No newline at end of file
+
+    @Test
+    void freeSlotsShouldReturnGapsOfRequestedLength() throws Exception {
+        HttpResponse<String> response = sendGetRequestWithStatus(
+                "/prioritized/free?from=2025-05-14T09:00&to=2025-05-14T15:00&duration=40");
+        assertEquals(200, response.statusCode(), "Должен вернуться статус 200");
+
+        List<TimeSlot> slots = taskServer.getGson().fromJson(response.body(),
+                new TypeToken<List<TimeSlot>>() {
+                }.getType());
+        assertEquals(List.of(
+                new TimeSlot(LocalDateTime.of(2025, 5, 14, 11, 15), LocalDateTime.of(2025, 5, 14, 12, 0)),
+                new TimeSlot(LocalDateTime.of(2025, 5, 14, 14, 0), LocalDateTime.of(2025, 5, 14, 15, 0))
+        ), slots, "Промежуток 9:00-9:30 короче 40 минут");
+
+        assertEquals(400, sendGetRequestWithStatus("/prioritized/free?from=2025-05-14T09:00").statusCode(),
+                "Без to - 400");
+    }
+
+    @Test
+    void eventsShouldLongPollForChangesAfterSince() throws Exception {
+        long since = manager.getEventLog().lastSeq();
+        HttpResponse<String> idle = sendGetRequestWithStatus("/events?since=" + since);
+        assertEquals(200, idle.statusCode());
+        assertEquals("[]", idle.body(), "Без wait пустой ответ сразу");
+        assertEquals(String.valueOf(since), idle.headers().firstValue("X-Next-Since").orElseThrow());
+
+        // изменение во время ожидания заканчивает long polling
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            manager.deleteTask(task2);
+        });
+        HttpResponse<String> changed = sendGetRequestWithStatus("/events?wait=10&since=" + since);
+        assertEquals(200, changed.statusCode());
+        JsonArray events = JsonParser.parseString(changed.body()).getAsJsonArray();
+        assertEquals(1, events.size());
+        JsonObject event = events.get(0).getAsJsonObject();
+        assertEquals(since + 1, event.get("seq").getAsLong());
+        assertEquals("DELETED", event.get("type").getAsString());
+        assertEquals(task2.getId(), event.get("id").getAsInt());
+        assertEquals("Заварить чай", event.getAsJsonObject("task").get("name").getAsString());
+        assertEquals(String.valueOf(since + 1), changed.headers().firstValue("X-Next-Since").orElseThrow());
+
+        assertEquals(410, sendGetRequestWithStatus("/events?since=" + (since + 5)).statusCode(),
+                "Номер, которого журнал не выдавал - 410");
+        assertEquals(400, sendGetRequestWithStatus("/events?since=x").statusCode());
+    }
+
+    @Test
+    void readEndpointsShouldAnswer304ForCurrentEtag() throws Exception {
+        for (String endpoint : List.of("/tasks", "/epics", "/subtasks", "/tasks?limit=1", "/history",
+                "/prioritized", "/prioritized?limit=2", "/tasks/" + task1.getId())) {
+            HttpResponse<String> first = sendGetRequestWithStatus(endpoint);
+            assertEquals(200, first.statusCode(), endpoint);
+            String etag = first.headers().firstValue("ETag").orElseThrow();
+
+            HttpResponse<String> repeated = sendConditionalGet(endpoint, etag);
+            assertEquals(304, repeated.statusCode(), endpoint + ": версия не изменилась");
+            assertEquals("", repeated.body());
+            assertEquals(etag, repeated.headers().firstValue("ETag").orElseThrow());
+            assertEquals(200, sendConditionalGet(endpoint, "\"other\"").statusCode(), endpoint);
+        }
+
+        String tasksEtag = sendGetRequestWithStatus("/tasks").headers().firstValue("ETag").orElseThrow();
+        String epicsEtag = sendGetRequestWithStatus("/epics").headers().firstValue("ETag").orElseThrow();
+        String historyEtag = sendGetRequestWithStatus("/history").headers().firstValue("ETag").orElseThrow();
+        String scheduleEtag = sendGetRequestWithStatus("/prioritized").headers().firstValue("ETag").orElseThrow();
+
+        manager.deleteTask(task2);
+        HttpResponse<String> changed = sendConditionalGet("/tasks", "W/" + tasksEtag);
+        assertEquals(200, changed.statusCode(), "После изменения - новый список");
+        assertNotEquals(tasksEtag, changed.headers().firstValue("ETag").orElseThrow());
+        assertEquals(304, sendConditionalGet("/epics", epicsEtag).statusCode(), "Эпики не менялись");
+        assertEquals(200, sendConditionalGet("/prioritized", scheduleEtag).statusCode());
+        assertEquals(200, sendConditionalGet("/history", historyEtag).statusCode(),
+                "Доска изменилась: ETag истории учитывает и её");
+    }
+
+    private HttpResponse<String> sendConditionalGet(String endpoint, String etag)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + endpoint))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
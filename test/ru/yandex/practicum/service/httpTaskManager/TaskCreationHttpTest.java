@@ -1,5 +1,7 @@
 package ru.yandex.practicum.service.httpTaskManager;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * POST /tasks
  * POST /epics
  * POST /subtasks
+ * POST /tasks/batch
  */
 class TaskCreationHttpTest {
 
@@ -82,6 +86,36 @@ class TaskCreationHttpTest {
         );
     }
 
+    @Test
+    void createAndUpdateShouldPublishOneEventEach() throws Exception {
+        long since = manager.getEventLog().lastSeq();
+        TaskDto taskDto = new TaskDto(0, "Включить чайник", "вскипятить воду", "NEW", null, null, null);
+        assertEquals(201, sendPostRequest("/tasks", taskDto).statusCode());
+        int id = manager.getAllTasksByType(TaskType.TASK).keySet().iterator().next();
+
+        JsonArray created = getEvents(since);
+        assertEquals(1, created.size(), "Создание - одно событие");
+        assertEquals("CREATED", created.get(0).getAsJsonObject().get("type").getAsString());
+
+        since = manager.getEventLog().lastSeq();
+        TaskDto updateDto = new TaskDto(id, "Включить чайник", "вскипятить воду", "DONE", null, null, null);
+        assertEquals(201, sendPostRequest("/tasks/" + id, updateDto).statusCode());
+
+        JsonArray updated = getEvents(since);
+        assertEquals(1, updated.size(), "Обновление - одно событие");
+        assertEquals("UPDATED", updated.get(0).getAsJsonObject().get("type").getAsString());
+    }
+
+    private JsonArray getEvents(long since) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/events?since=" + since))
+                .GET()
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return JsonParser.parseString(response.body()).getAsJsonArray();
+    }
+
     @Test
     void createEpicShouldReturn201AndSaveEpic() throws Exception {
         // Arrange
@@ -139,4 +173,54 @@ class TaskCreationHttpTest {
         assertEquals(400, response.statusCode());
         assertTrue(manager.getAllTasksByType(TaskType.SUBTASK).isEmpty());
     }
+
+    private HttpResponse<String> sendBatchRequest(String endpoint, List<TaskDto> taskDtos)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(taskServer.getGson().toJson(taskDtos)))
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void createBatchShouldReturn201WithIdsOrRejectWholeBatch() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2025, 5, 14, 11, 0);
+        List<TaskDto> batch = List.of(
+                new TaskDto(0, "Задача 1", "", "NEW", base, Duration.ofMinutes(30), null),
+                new TaskDto(0, "Задача 2", "", "NEW", base.plusHours(1), Duration.ofMinutes(30), null));
+
+        HttpResponse<String> response = sendBatchRequest("/tasks/batch", batch);
+
+        assertEquals(201, response.statusCode());
+        assertEquals("[1,2]", response.body(), "В ответе id созданных задач");
+        assertEquals(2, manager.getAllTasksByType(TaskType.TASK).size());
+
+        // вторая задача пачки пересекается с уже созданной - не добавляется ни одна
+        List<TaskDto> conflicting = List.of(
+                new TaskDto(0, "Задача 3", "", "NEW", base.plusHours(3), Duration.ofMinutes(30), null),
+                new TaskDto(0, "Задача 4", "", "NEW", base.plusMinutes(15), Duration.ofMinutes(30), null));
+        assertEquals(406, sendBatchRequest("/tasks/batch", conflicting).statusCode());
+        assertEquals(400, sendBatchRequest("/tasks/batch", List.of()).statusCode());
+        assertEquals(2, manager.getAllTasksByType(TaskType.TASK).size());
+    }
+
+    @Test
+    void autoPlacedTaskShouldGetEarliestFreeSlot() throws Exception {
+        manager.addTask(new Task("Занято", "", LocalDateTime.of(2025, 5, 14, 9, 0), Duration.ofMinutes(60)));
+        TaskDto taskDto = new TaskDto(0, "Куда-нибудь", "", "NEW", null, Duration.ofMinutes(30), null);
+
+        HttpResponse<String> response = sendPostRequest(
+                "/tasks?place=auto&from=2025-05-14T09:00&to=2025-05-14T18:00", taskDto);
+
+        assertEquals(201, response.statusCode());
+        Task placed = taskServer.getGson().fromJson(response.body(), Task.class);
+        assertEquals(LocalDateTime.of(2025, 5, 14, 10, 0), placed.getStartTime(), "Сразу после занятого часа");
+        assertEquals(2, manager.getPrioritizedTasks().size());
+
+        HttpResponse<String> noRoom = sendPostRequest(
+                "/tasks?place=auto&from=2025-05-14T09:00&to=2025-05-14T10:00", taskDto);
+        assertEquals(406, noRoom.statusCode(), "Свободного промежутка нет");
+    }
 }
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.service.id;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    static List<Supplier<IdAllocator>> allocators() {
+        return List.of(AtomicIdAllocator::new, () -> new BlockIdAllocator(8));
+    }
+
+    @ParameterizedTest
+    @MethodSource("allocators")
+    void shouldIssueUniqueIdsFromManyThreads(Supplier<IdAllocator> factory) throws Exception {
+        IdAllocator allocator = factory.get();
+        int threads = 16;
+        int idsPerThread = 1_000;
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        assertTrue(ids.add(allocator.nextId()), "id не должен повторяться");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size(), "Все выданные id должны быть разными");
+        assertTrue(ids.stream().allMatch(id -> id > 0 && id <= allocator.lastId()),
+                "Выданные id не превышают lastId");
+    }
+
+    @ParameterizedTest
+    @MethodSource("allocators")
+    void shouldNotIssueObservedIds(Supplier<IdAllocator> factory) {
+        IdAllocator allocator = factory.get();
+        int first = allocator.nextId();
+        // занятый id внутри уже арендованного диапазона и id выше всех аренд
+        allocator.observe(first + 1);
+        allocator.observe(100);
+        assertTrue(allocator.lastId() >= 100, "lastId учитывает занятые id");
+
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            int next = allocator.nextId();
+            assertTrue(ids.add(next), "id не должен повторяться");
+            assertTrue(next != first + 1 && next != 100, "Занятый id не выдаётся: " + next);
+            assertTrue(allocator.lastId() >= next);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("allocators")
+    void shouldNotIssueIdsObservedConcurrently(Supplier<IdAllocator> factory) throws Exception {
+        IdAllocator allocator = factory.get();
+        int workers = 8;
+        int idsPerWorker = 20_000;
+        Set<Integer> issued = ConcurrentHashMap.newKeySet();
+        // занятый id -> значение часов, когда observe уже вернул управление
+        Map<Integer, Long> observedAt = new ConcurrentHashMap<>();
+        AtomicLong clock = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        try {
+            // как менеджер: задача с заданным id, которого ещё нет, - чаще всего внутри чьей-то аренды
+            Future<?> observer = executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!done.get()) {
+                    int id = random.nextInt(1, allocator.lastId() + 64);
+                    if (issued.contains(id) || observedAt.containsKey(id)) {
+                        continue;
+                    }
+                    allocator.observe(id);
+                    observedAt.put(id, clock.get());
+                    clock.incrementAndGet();
+                }
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < idsPerWorker; j++) {
+                        long start = clock.get();
+                        int id = allocator.nextId();
+                        assertTrue(issued.add(id), "id не должен повторяться: " + id);
+                        Long observed = observedAt.get(id);
+                        assertFalse(observed != null && observed < start,
+                                "Выдан id, занятый до начала вызова nextId: " + id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            done.set(true);
+            observer.get();
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+
+        assertEquals(workers * idsPerWorker, issued.size());
+        assertFalse(observedAt.isEmpty(), "Тест должен занимать id одновременно с выдачей");
+    }
+
+    @ParameterizedTest
+    @MethodSource("allocators")
+    void shouldStartOverAfterReset(Supplier<IdAllocator> factory) {
+        IdAllocator allocator = factory.get();
+        allocator.nextId();
+        allocator.nextId();
+
+        allocator.reset();
+
+        assertEquals(1, allocator.nextId(), "После сброса нумерация начинается с 1");
+    }
+}
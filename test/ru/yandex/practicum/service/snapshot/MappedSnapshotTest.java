@@ -0,0 +1,58 @@
+package ru.yandex.practicum.service.snapshot;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.entity.Epic;
+import ru.yandex.practicum.entity.Status;
+import ru.yandex.practicum.entity.Subtask;
+import ru.yandex.practicum.entity.Task;
+import ru.yandex.practicum.entity.TaskType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest {
+
+    @Test
+    void shouldReadRecordsAcrossRegions() throws IOException {
+        Path file = Files.createTempFile("tasks", ".bin");
+        List<Task> tasks = new ArrayList<>();
+        Epic epic = new Epic(1, "Эпик", "Описание");
+        tasks.add(epic);
+        for (int id = 2; id <= 50; id++) {
+            tasks.add(id % 2 == 0
+                    ? new Subtask(id, "Подзадача " + id, "x".repeat(id), Status.NEW, epic,
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(id), Duration.ofMinutes(30))
+                    : new Task(id, "Задача " + id, "", Status.DONE, null, null));
+        }
+        BinarySnapshot.write(file, "lastId=60", tasks);
+
+        // куски по 16 байт: почти каждая запись начинается в своём куске
+        MappedSnapshot snapshot = MappedSnapshot.open(file, 16);
+
+        assertEquals("lastId=60", snapshot.getHeader());
+        assertEquals(50, snapshot.size());
+        assertEquals(25, snapshot.count(TaskType.SUBTASK));
+        assertEquals(25, snapshot.subtaskCount(snapshot.position(1)));
+        assertTrue(snapshot.position(51) < 0);
+        assertEquals(snapshot.size(), snapshot.positionAfter(50));
+        for (int position = 0; position < snapshot.size(); position++) {
+            int expectedId = snapshot.idAt(position);
+            snapshot.read(position, (id, type, name, description, status, parentEpicId, startTime, duration) -> {
+                assertEquals(expectedId, id);
+                if (type == TaskType.SUBTASK) {
+                    assertEquals("Подзадача " + id, name);
+                    assertEquals(id, description.length());
+                    assertEquals(1, parentEpicId);
+                }
+            });
+        }
+        Files.deleteIfExists(file);
+    }
+}